@@ -0,0 +1,114 @@
+import java.awt.Canvas;
+import java.awt.Graphics;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Optional active-rendering mode. A dedicated thread steps the engine at the fixed TICK_MS logic
+ * rate, as paced by the view's GameClock, and presents frames through a page-flipped
+ * BufferStrategy on a Canvas at a target FPS, instead of relying on Swing timers and repaint()
+ * coalescing on the EDT.
+ *
+ * The engine is guarded by its own monitor: this thread holds it while stepping and drawing,
+ * and the view's input handlers take it before touching the engine from the EDT.
+ */
+class ActiveRenderLoop implements Runnable {
+
+    private static final long REPORT_NANOS = 5_000_000_000L;
+
+    final Canvas canvas = new Canvas();
+    private final GameEngine engine;
+    private final TheBestFootballGame view;
+    private final long frameNanos;
+
+    // Frame-time stats for the current report window
+    private long frames;
+    private double intervalSum, intervalSqSum, worstDeviation;
+
+    ActiveRenderLoop(GameEngine engine, TheBestFootballGame view, int targetFps) {
+        this.engine = engine;
+        this.view = view;
+        this.frameNanos = 1_000_000_000L / targetFps;
+
+        canvas.setPreferredSize(view.getPreferredSize());
+        canvas.setIgnoreRepaint(true);
+        canvas.setFocusable(true);
+        canvas.addKeyListener(view);
+        canvas.addMouseListener(view);
+    }
+
+    /** Call once the canvas is displayable (its frame has been packed or shown). */
+    void start() {
+        canvas.createBufferStrategy(2);
+        canvas.requestFocus();
+        Thread thread = new Thread(this, "active-render-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        BufferStrategy strategy = canvas.getBufferStrategy();
+        long start = System.nanoTime();
+        long lastFrame = start;
+        long nextFrame = start + frameNanos;
+        long nextReport = start + REPORT_NANOS;
+        view.clock.start(start);
+
+        while (!Thread.currentThread().isInterrupted()) {
+            long now = System.nanoTime();
+            synchronized (engine) {
+                view.advance(now);
+                engine.consumeChanged();
+            }
+
+            present(strategy);
+
+            now = System.nanoTime();
+            recordFrame(now - lastFrame);
+            lastFrame = now;
+            if (now >= nextReport) {
+                report();
+                nextReport = now + REPORT_NANOS;
+            }
+
+            // Fall back into step rather than bursting frames after a long stall
+            if (nextFrame < now - frameNanos) nextFrame = now;
+            while ((now = System.nanoTime()) < nextFrame) LockSupport.parkNanos(nextFrame - now);
+            nextFrame += frameNanos;
+        }
+    }
+
+    private void present(BufferStrategy strategy) {
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
+                try {
+                    view.render(g, canvas.getWidth(), canvas.getHeight());
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    private void recordFrame(long intervalNanos) {
+        double ms = intervalNanos / 1e6;
+        frames++;
+        intervalSum += ms;
+        intervalSqSum += ms * ms;
+        worstDeviation = Math.max(worstDeviation, Math.abs(ms - frameNanos / 1e6));
+    }
+
+    private void report() {
+        double mean = intervalSum / frames;
+        double sd = Math.sqrt(Math.max(0, intervalSqSum / frames - mean * mean));
+        System.out.printf("frames: %.1f fps, %.2f ms avg, jitter %.2f ms sd / %.2f ms worst%n",
+                1000 / mean, mean, sd, worstDeviation);
+        frames = 0;
+        intervalSum = intervalSqSum = worstDeviation = 0;
+    }
+}
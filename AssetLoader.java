@@ -0,0 +1,69 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs asset decodes on a small daemon pool and keeps a per-asset timing for the startup report.
+ * Tasks write their results wherever they like; whenDone() completes after every task has, which
+ * is the caller's cue (and happens-before edge) to start using them.
+ */
+class AssetLoader {
+
+    private final long startNanos = System.nanoTime();
+    private final ExecutorService pool;
+    private final int threads;
+    private final List<CompletableFuture<Void>> tasks = new ArrayList<>();
+    private final ConcurrentLinkedQueue<String> timings = new ConcurrentLinkedQueue<>();
+    private final AtomicLong workNanos = new AtomicLong();
+    private CompletableFuture<Void> done;
+
+    AssetLoader(int threads) {
+        this.threads = threads;
+        AtomicInteger n = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "asset-loader-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    static AssetLoader forThisMachine() {
+        return new AssetLoader(Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors())));
+    }
+
+    void load(String name, Runnable task) {
+        tasks.add(CompletableFuture.runAsync(() -> {
+            long t0 = System.nanoTime();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.out.println("Error loading " + name + ": " + e.getMessage());
+            }
+            long took = System.nanoTime() - t0;
+            workNanos.addAndGet(took);
+            timings.add(String.format("  %7.1f ms  %s", took / 1e6, name));
+        }, pool));
+    }
+
+    /** Completes once every task has finished, after which the pool shuts down. Call after the last load(). */
+    synchronized CompletableFuture<Void> whenDone() {
+        if (done == null) done = CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).whenComplete((v, e) -> pool.shutdown());
+        return done;
+    }
+
+    double elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1e6;
+    }
+
+    void printReport() {
+        System.out.println("assets:");
+        for (String line : timings) System.out.println(line);
+        System.out.printf("assets: %d loaded in %.1f ms wall, %.1f ms of work on %d threads%n",
+                tasks.size(), elapsedMillis(), workNanos.get() / 1e6, threads);
+    }
+}
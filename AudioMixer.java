@@ -0,0 +1,281 @@
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.SourceDataLine;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Software mixer. Every effect is decoded once into 16-bit stereo PCM, and any number of
+ * overlapping voices are summed into a single output line on a dedicated audio thread, so
+ * retriggering a sound never cuts off the copy that is already playing.
+ *
+ * trigger() is lock-free and safe from any thread. Latency is measured from the trigger call to
+ * the moment the voice's first frame reaches the output, including whatever is already queued
+ * in the line. Usage (self-test): java AudioMixer [--null] [--buffer frames]
+ */
+class AudioMixer implements Runnable {
+
+    static final float SAMPLE_RATE = 44100f;
+    static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, 2, true, false);
+    static final int DEFAULT_BUFFER_FRAMES = 1024;
+
+    /** Where mixed blocks go. write() should block while the device is full, which paces the mixer. */
+    interface Output {
+        void open(int bufferFrames) throws Exception;
+        void write(byte[] data, int len);
+        int queuedFrames();
+        void close();
+    }
+
+    /** The sound card, through one SourceDataLine. */
+    static class LineOutput implements Output {
+        private SourceDataLine line;
+
+        public void open(int bufferFrames) throws Exception {
+            line = AudioSystem.getSourceDataLine(FORMAT);
+            line.open(FORMAT, bufferFrames * FORMAT.getFrameSize());
+            line.start();
+        }
+        public void write(byte[] data, int len) { line.write(data, 0, len); }
+        public int queuedFrames() { return (line.getBufferSize() - line.available()) / FORMAT.getFrameSize(); }
+        public void close() { line.close(); }
+    }
+
+    /** Discards audio at the real-time rate of a device with the same buffer, for headless runs and tests. */
+    static class NullOutput implements Output {
+        private long playedUntil;
+        private int bufferFrames;
+
+        public void open(int bufferFrames) { this.bufferFrames = bufferFrames; playedUntil = System.nanoTime(); }
+        public void write(byte[] data, int len) {
+            long blockNanos = (long) (len / FORMAT.getFrameSize() * 1e9 / SAMPLE_RATE);
+            long now = System.nanoTime();
+            if (playedUntil < now) playedUntil = now;
+            playedUntil += blockNanos;
+            long bufferNanos = (long) (bufferFrames * 1e9 / SAMPLE_RATE);
+            while ((now = System.nanoTime()) < playedUntil - bufferNanos) LockSupport.parkNanos(playedUntil - bufferNanos - now);
+        }
+        public int queuedFrames() {
+            long ahead = playedUntil - System.nanoTime();
+            return ahead <= 0 ? 0 : (int) (ahead * SAMPLE_RATE / 1e9);
+        }
+        public void close() { }
+    }
+
+    // --- Decoded Samples ---
+    private final short[][] samples; // interleaved L/R per sound id
+
+    // --- Trigger Ring (any thread -> audio thread) ---
+    private static final int RING_SIZE = 64;
+    private final AtomicIntegerArray ringSound = new AtomicIntegerArray(RING_SIZE); // sound id + 1, 0 = empty
+    private final AtomicLongArray ringTime = new AtomicLongArray(RING_SIZE);
+    private final AtomicInteger ringTail = new AtomicInteger();
+    private volatile int ringHead; // written by the audio thread only; producers read it to see free slots
+
+    // --- Voices (audio thread only) ---
+    private int[] voiceSound = new int[16], voicePos = new int[16];
+    private long[] voiceTrigger = new long[16];
+    private int voiceCount;
+
+    // --- Latency (written by the audio thread) ---
+    private volatile long latencyCount, latencySumNanos, latencyMaxNanos;
+    private final LongAdder droppedTriggers = new LongAdder();
+
+    private final Output output;
+    private final int bufferFrames, blockFrames;
+    private volatile boolean running;
+
+    AudioMixer(String[] files, Output output, int bufferFrames) {
+        this.output = output;
+        this.bufferFrames = bufferFrames;
+        this.blockFrames = Math.max(64, bufferFrames / 4);
+        samples = new short[files.length][];
+        for (int i = 0; i < files.length; i++) samples[i] = decode(files[i]);
+    }
+
+    /** Opens the output and starts the audio thread; returns null if the output can't be opened. */
+    static AudioMixer start(String[] files, Output output, int bufferFrames) {
+        AudioMixer mixer = new AudioMixer(files, output, bufferFrames);
+        try {
+            output.open(bufferFrames);
+        } catch (Exception e) {
+            return null;
+        }
+        mixer.running = true;
+        Thread t = new Thread(mixer, "audio-mixer");
+        t.setDaemon(true);
+        t.setPriority(Thread.MAX_PRIORITY);
+        t.start();
+        return mixer;
+    }
+
+    void shutdown() { running = false; }
+
+    /** Queues a new voice for the given sound. Never blocks; drops the trigger if the ring is full. */
+    void trigger(int sound) {
+        // Claim the tail only once its slot has been drained, so a dropped trigger leaves head and tail in step
+        int tail;
+        do {
+            tail = ringTail.get();
+            if (tail - ringHead >= RING_SIZE) { droppedTriggers.increment(); return; }
+        } while (!ringTail.compareAndSet(tail, tail + 1));
+        int slot = tail & (RING_SIZE - 1);
+        ringTime.set(slot, System.nanoTime());
+        ringSound.set(slot, sound + 1);
+    }
+
+    // --- Decoding ---
+
+    private static short[] decode(String filename) {
+        File f = new File(filename);
+        if (!f.exists()) return new short[0];
+        try (AudioInputStream raw = AudioSystem.getAudioInputStream(f)) {
+            AudioFormat src = raw.getFormat();
+            AudioFormat pcm = new AudioFormat(src.getSampleRate(), 16, src.getChannels(), true, false);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (AudioInputStream in = AudioSystem.getAudioInputStream(pcm, raw)) {
+                byte[] buf = new byte[8192];
+                int n;
+                while ((n = in.read(buf)) > 0) bytes.write(buf, 0, n);
+            }
+            byte[] b = bytes.toByteArray();
+            int channels = pcm.getChannels();
+            int frames = b.length / (2 * channels);
+
+            // Up- or down-mix to stereo
+            short[] stereo = new short[frames * 2];
+            for (int i = 0; i < frames; i++) {
+                int base = i * channels * 2;
+                short l = (short) ((b[base] & 0xff) | (b[base + 1] << 8));
+                short r = channels > 1 ? (short) ((b[base + 2] & 0xff) | (b[base + 3] << 8)) : l;
+                stereo[i * 2] = l;
+                stereo[i * 2 + 1] = r;
+            }
+            return resample(stereo, src.getSampleRate());
+        } catch (Exception e) {
+            return new short[0];
+        }
+    }
+
+    // Linear resampling to SAMPLE_RATE; a no-op for the 44.1 kHz assets we ship
+    private static short[] resample(short[] stereo, float rate) {
+        if (rate == SAMPLE_RATE) return stereo;
+        int inFrames = stereo.length / 2;
+        int outFrames = (int) ((long) inFrames * SAMPLE_RATE / rate);
+        short[] out = new short[outFrames * 2];
+        double step = rate / SAMPLE_RATE;
+        for (int i = 0; i < outFrames; i++) {
+            double pos = i * step;
+            int p = (int) pos;
+            double frac = pos - p;
+            int q = Math.min(p + 1, inFrames - 1);
+            for (int c = 0; c < 2; c++) {
+                out[i * 2 + c] = (short) (stereo[p * 2 + c] * (1 - frac) + stereo[q * 2 + c] * frac);
+            }
+        }
+        return out;
+    }
+
+    // --- Audio Thread ---
+
+    @Override
+    public void run() {
+        int[] mix = new int[blockFrames * 2];
+        byte[] out = new byte[blockFrames * FORMAT.getFrameSize()];
+        while (running) {
+            drainTriggers();
+            Arrays.fill(mix, 0);
+
+            long now = System.nanoTime();
+            long queuedNanos = (long) (output.queuedFrames() * 1e9 / SAMPLE_RATE);
+            for (int v = 0; v < voiceCount; v++) {
+                short[] s = samples[voiceSound[v]];
+                int pos = voicePos[v];
+                if (pos == 0) recordLatency(now - voiceTrigger[v] + queuedNanos);
+                int n = Math.min(mix.length, s.length - pos);
+                for (int i = 0; i < n; i++) mix[i] += s[pos + i];
+                voicePos[v] = pos + n;
+            }
+            // Swap-remove finished voices
+            for (int v = voiceCount - 1; v >= 0; v--) {
+                if (voicePos[v] >= samples[voiceSound[v]].length) {
+                    voiceCount--;
+                    voiceSound[v] = voiceSound[voiceCount];
+                    voicePos[v] = voicePos[voiceCount];
+                    voiceTrigger[v] = voiceTrigger[voiceCount];
+                }
+            }
+
+            for (int i = 0; i < mix.length; i++) {
+                int m = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+                out[i * 2] = (byte) m;
+                out[i * 2 + 1] = (byte) (m >> 8);
+            }
+            output.write(out, out.length);
+        }
+        output.close();
+    }
+
+    private void drainTriggers() {
+        int slot;
+        int sound;
+        while ((sound = ringSound.get(slot = ringHead & (RING_SIZE - 1))) != 0) {
+            long time = ringTime.get(slot);
+            ringSound.set(slot, 0);
+            ringHead++;
+            if (samples[sound - 1].length == 0) continue;
+            if (voiceCount == voiceSound.length) {
+                voiceSound = Arrays.copyOf(voiceSound, voiceCount * 2);
+                voicePos = Arrays.copyOf(voicePos, voiceCount * 2);
+                voiceTrigger = Arrays.copyOf(voiceTrigger, voiceCount * 2);
+            }
+            voiceSound[voiceCount] = sound - 1;
+            voicePos[voiceCount] = 0;
+            voiceTrigger[voiceCount] = time;
+            voiceCount++;
+        }
+    }
+
+    private void recordLatency(long nanos) {
+        latencyCount++;
+        latencySumNanos += nanos;
+        if (nanos > latencyMaxNanos) latencyMaxNanos = nanos;
+    }
+
+    String latencyReport() {
+        long n = latencyCount;
+        return String.format("audio: %d voices started, latency %.2f ms avg / %.2f ms max, buffer %d frames, %d dropped",
+                n, n == 0 ? 0 : latencySumNanos / 1e6 / n, latencyMaxNanos / 1e6, bufferFrames, droppedTriggers.sum());
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean nullOutput = false;
+        int buffer = DEFAULT_BUFFER_FRAMES;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--null")) nullOutput = true;
+            else if (args[i].equals("--buffer")) buffer = Integer.parseInt(args[++i]);
+        }
+        String[] files = { "cheer.wav", "seal.wav", "whistle.wav", "step.wav", "thud.wav" };
+        AudioMixer mixer = start(files, nullOutput ? new NullOutput() : new LineOutput(), buffer);
+        if (mixer == null) {
+            System.err.println("No audio line available; try --null");
+            System.exit(1);
+        }
+        // Rapid-fire steps and thuds over a cheer, the case single Clips used to cut off
+        mixer.trigger(0);
+        for (int i = 0; i < 40; i++) {
+            mixer.trigger(3 + (i & 1));
+            Thread.sleep(50);
+        }
+        Thread.sleep(500);
+        System.out.println(mixer.latencyReport());
+        mixer.shutdown();
+    }
+}
@@ -0,0 +1,218 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Monte Carlo runner bot. For each decision it plays many short futures from a copy of the engine:
+ * the first move is one of the four directions, the rest follow BatchRunner's runner policy, and
+ * the defenders roll their own dice in every copy. Each future is scored on yards gained,
+ * touchdowns and whether it ended in a tackle, and the direction with the best average wins if it
+ * clearly beats the move the policy would have made anyway. The real engine does the simulating,
+ * so pushes and tackles count exactly as they would in play. Rollouts run on every core until the
+ * per-move time budget, or a fixed rollout count, is used up; with a fixed count the choice
+ * depends only on the seed.
+ *
+ * Usage: java AutoPlayer [--games N] [--seed S] [--budget ms] [--rollouts N] [--horizon moves]
+ *                        [--threads T] [--moves-per-sec M]
+ */
+public class AutoPlayer {
+
+    static final int[] MOVES = { GameEngine.INPUT_LEFT, GameEngine.INPUT_UP, GameEngine.INPUT_DOWN, GameEngine.INPUT_RIGHT };
+
+    // Rollout scoring, in yards
+    static final double TOUCHDOWN_VALUE = 40;
+    static final double POINT_VALUE = 2;
+    static final double TURNOVER_PENALTY = 40;
+    // A move other than the runner policy's own must beat it by this many standard errors
+    static final double CONFIDENCE = 1.0;
+
+    private final long budgetNanos;
+    private final int fixedRollouts; // per move; 0 = use the time budget
+    private final int horizonMoves, moveEvery, threads;
+    private final ExecutorService pool;
+    private long nextSeed;
+
+    // --- Stats ---
+    private long decisions, rollouts, decideNanos, maxDecideNanos;
+
+    AutoPlayer(int budgetMs, int fixedRollouts, int horizonMoves, int moveEvery, int threads, long seed) {
+        this.budgetNanos = budgetMs * 1_000_000L;
+        this.fixedRollouts = fixedRollouts;
+        this.horizonMoves = horizonMoves;
+        this.moveEvery = moveEvery;
+        this.threads = threads;
+        this.nextSeed = seed;
+        AtomicInteger n = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "autoplay-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** The input to give the engine now. root is only read; pass a copy if another thread is stepping it. */
+    int choose(GameEngine root) throws Exception {
+        if (root.gameState == GameEngine.GameState.MENU || root.gameState == GameEngine.GameState.GAMEOVER) return GameEngine.INPUT_START;
+        if (root.gameState != GameEngine.GameState.PLAYING) return GameEngine.INPUT_NONE;
+
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        long base = nextSeed;
+        nextSeed += 1L << 32;
+
+        List<Future<double[]>> parts = new ArrayList<>();
+        for (int w = 0; w < threads; w++) {
+            final int worker = w;
+            parts.add(pool.submit(() -> {
+                // { sum per move..., sum of squares per move..., count per move... }
+                double[] acc = new double[MOVES.length * 3];
+                for (int i = worker; ; i += threads) {
+                    int m = i % MOVES.length;
+                    if (fixedRollouts > 0 ? i >= fixedRollouts * MOVES.length : System.nanoTime() >= deadline && i >= MOVES.length) break;
+                    double v = rollout(root.copy(base + i / MOVES.length), MOVES[m]);
+                    acc[m] += v;
+                    acc[MOVES.length + m] += v * v;
+                    acc[2 * MOVES.length + m]++;
+                }
+                return acc;
+            }));
+        }
+
+        double[] total = new double[MOVES.length * 3];
+        for (Future<double[]> f : parts) {
+            double[] acc = f.get();
+            for (int i = 0; i < total.length; i++) total[i] += acc[i];
+        }
+
+        // Best average wins, but only if it beats the runner policy's own move by more than the
+        // noise; otherwise a few unlucky rollouts would have the bot dithering sideways
+        double[] mean = new double[MOVES.length], var = new double[MOVES.length], count = new double[MOVES.length];
+        int best = -1, fallback = 0;
+        int policyMove = BatchRunner.chooseMove(root);
+        for (int m = 0; m < MOVES.length; m++) {
+            count[m] = total[2 * MOVES.length + m];
+            rollouts += (long) count[m];
+            if (MOVES[m] == policyMove) fallback = m;
+            if (count[m] == 0) continue;
+            mean[m] = total[m] / count[m];
+            var[m] = Math.max(0, total[MOVES.length + m] / count[m] - mean[m] * mean[m]) / count[m];
+            if (best < 0 || mean[m] > mean[best]) best = m;
+        }
+        if (best < 0 || count[fallback] == 0 || mean[best] - mean[fallback] <= CONFIDENCE * Math.sqrt(var[best] + var[fallback])) {
+            best = fallback;
+        }
+
+        long took = System.nanoTime() - start;
+        decisions++;
+        decideNanos += took;
+        maxDecideNanos = Math.max(maxDecideNanos, took);
+        return MOVES[best];
+    }
+
+    // Plays one future on sim for a fixed stretch of game time and scores it. Tackles aren't an
+    // early stop: the play resets and the clock keeps running, so a tackle costs what it costs in
+    // a real game (the pause, the kickoff and maybe the down).
+    private double rollout(GameEngine sim, int firstMove) {
+        int startX = sim.player.x;
+        int startScore = sim.score, startTouchdowns = sim.touchdowns;
+        sim.input(firstMove);
+        int sinceMove = 0;
+        for (int t = horizonMoves * moveEvery; t > 0 && sim.gameState != GameEngine.GameState.GAMEOVER; t--) {
+            int input = GameEngine.INPUT_NONE;
+            if (sim.gameState == GameEngine.GameState.PLAYING && ++sinceMove >= moveEvery) {
+                input = BatchRunner.chooseMove(sim);
+                sinceMove = 0;
+            }
+            sim.step(input);
+        }
+        int touchdowns = sim.touchdowns - startTouchdowns;
+        // Each touchdown restarts the player at the far end; count the whole run to the goal line
+        double value = startX - sim.player.x + touchdowns * (sim.fieldEndX - (GameEngine.FIELD_START_X - 1));
+        value += touchdowns * TOUCHDOWN_VALUE;
+        value += (sim.score - startScore) * POINT_VALUE;
+        if (sim.gameState == GameEngine.GameState.GAMEOVER && sim.timeRemaining > 0) value -= TURNOVER_PENALTY;
+        return value;
+    }
+
+    String report() {
+        double secs = decideNanos / 1e9;
+        return String.format("autoplay: %d decisions, %d rollouts (%.0f per decision), %.0f rollouts/sec on %d threads, "
+                + "decision %.1f ms avg / %.1f ms max",
+                decisions, rollouts, decisions == 0 ? 0 : (double) rollouts / decisions, secs == 0 ? 0 : rollouts / secs,
+                threads, decisions == 0 ? 0 : decideNanos / 1e6 / decisions, maxDecideNanos / 1e6);
+    }
+
+    void shutdown() { pool.shutdown(); }
+
+    /** Attract mode: plays the given engine from a daemon thread, one decision every moveEvery ticks of wall time. */
+    static void attract(GameEngine engine, AutoPlayer bot) {
+        Thread t = new Thread(() -> {
+            long seed = 0;
+            try {
+                while (true) {
+                    Thread.sleep(bot.moveEvery * GameEngine.TICK_MS);
+                    GameEngine snapshot;
+                    synchronized (engine) { snapshot = engine.copy(seed++); }
+                    int input = bot.choose(snapshot);
+                    if (input == GameEngine.INPUT_NONE) continue;
+                    synchronized (engine) { engine.input(input); }
+                }
+            } catch (InterruptedException e) {
+                // window closing
+            } catch (Exception e) {
+                System.out.println("Autoplay stopped: " + e);
+            }
+        }, "autoplay-driver");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int games = 3;
+        long seed = 1;
+        int budgetMs = 20, rolloutsPerMove = 0, horizon = 8;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int movesPerSec = 4;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--games": games = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--budget": budgetMs = Integer.parseInt(args[++i]); break;
+                case "--rollouts": rolloutsPerMove = Integer.parseInt(args[++i]); break;
+                case "--horizon": horizon = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--moves-per-sec": movesPerSec = Integer.parseInt(args[++i]); break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        int moveEvery = Math.max(1, 1000 / (movesPerSec * GameEngine.TICK_MS));
+        AutoPlayer bot = new AutoPlayer(budgetMs, rolloutsPerMove, horizon, moveEvery, threads, seed);
+        long totalScore = 0, totalTouchdowns = 0;
+        for (int g = 0; g < games; g++) {
+            GameEngine engine = new GameEngine(seed + g);
+            engine.input(GameEngine.INPUT_START);
+            int sinceMove = 0;
+            while (engine.gameState != GameEngine.GameState.GAMEOVER) {
+                int input = GameEngine.INPUT_NONE;
+                if (engine.gameState == GameEngine.GameState.PLAYING && ++sinceMove >= moveEvery) {
+                    input = bot.choose(engine);
+                    sinceMove = 0;
+                }
+                engine.step(input);
+            }
+            System.out.printf("game %d: score %d, %d TDs%n", g + 1, engine.score, engine.touchdowns);
+            totalScore += engine.score;
+            totalTouchdowns += engine.touchdowns;
+        }
+        System.out.printf("avg score:   %.2f%n", (double) totalScore / games);
+        System.out.printf("avg TDs:     %.3f%n", (double) totalTouchdowns / games);
+        System.out.println(bot.report());
+        bot.shutdown();
+    }
+}
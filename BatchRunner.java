@@ -0,0 +1,125 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays seeded games headless on every core and reports throughput. Game i always uses seed
+ * (seed + i), so a batch gives the same totals regardless of thread count.
+ *
+ * Usage: java BatchRunner [--games N] [--seed S] [--threads T] [--moves-per-sec M]
+ *                         [--ai random|pursuit] [--aggression A] [--field-width W] [--field-rows R] [--two-phase]
+ */
+public class BatchRunner {
+
+    // Totals for one worker's share of the batch
+    static class Result {
+        long games, score, touchdowns, ticks;
+
+        void add(Result o) {
+            games += o.games; score += o.score; touchdowns += o.touchdowns; ticks += o.ticks;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int games = 10_000;
+        long seed = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int movesPerSec = 4;
+        GameConfig config = new GameConfig();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--games": games = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--moves-per-sec": movesPerSec = Integer.parseInt(args[++i]); break;
+                case "--ai": config.aiMode = args[++i].equals("pursuit") ? GameConfig.AiMode.PURSUIT : GameConfig.AiMode.RANDOM_WALK; break;
+                case "--aggression": config.pursuitAggression = Double.parseDouble(args[++i]); break;
+                case "--field-width": config.fieldWidth = Integer.parseInt(args[++i]); break;
+                case "--field-rows": config.fieldRows = Integer.parseInt(args[++i]); break;
+                case "--two-phase": config.twoPhaseTick = true; break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        int moveEvery = Math.max(1, 1000 / (movesPerSec * GameEngine.TICK_MS));
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Result>> parts = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            final int first = t;
+            final int count = games;
+            final int stride = threads;
+            final long baseSeed = seed;
+            parts.add(pool.submit(() -> {
+                Result r = new Result();
+                for (int g = first; g < count; g += stride) r.add(playGame(baseSeed + g, moveEvery, config));
+                return r;
+            }));
+        }
+
+        Result total = new Result();
+        for (Future<Result> f : parts) total.add(f.get());
+        double secs = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        System.out.printf("games:       %d on %d threads in %.2f s%n", total.games, threads, secs);
+        System.out.printf("games/sec:   %.0f%n", total.games / secs);
+        System.out.printf("ticks/sec:   %.0f%n", total.ticks / secs);
+        System.out.printf("avg score:   %.2f%n", (double) total.score / total.games);
+        System.out.printf("avg TDs:     %.3f%n", (double) total.touchdowns / total.games);
+    }
+
+    /** Plays one full game, from START to GAMEOVER, with the built-in runner policy. */
+    static Result playGame(long seed, int moveEvery, GameConfig config) {
+        GameEngine engine = new GameEngine(seed, config);
+        engine.input(GameEngine.INPUT_START);
+        int sinceMove = 0;
+        while (engine.gameState != GameEngine.GameState.GAMEOVER) {
+            int input = GameEngine.INPUT_NONE;
+            if (engine.gameState == GameEngine.GameState.PLAYING && ++sinceMove >= moveEvery) {
+                input = chooseMove(engine);
+                sinceMove = 0;
+            }
+            engine.step(input);
+        }
+        Result r = new Result();
+        r.games = 1;
+        r.score = engine.score;
+        r.touchdowns = engine.touchdowns;
+        r.ticks = engine.tick;
+        return r;
+    }
+
+    /**
+     * Runs for the endzone: straight left when that cell is open or holds a defender that can be
+     * knocked down, otherwise sidesteps to an open row, otherwise pushes left anyway.
+     */
+    static int chooseMove(GameEngine engine) {
+        int x = engine.player.x, y = engine.player.y;
+        if (safe(engine, x, y, -1, 0)) return GameEngine.INPUT_LEFT;
+        boolean upFirst = y > engine.rows / 2;
+        if (upFirst && safe(engine, x, y, 0, -1)) return GameEngine.INPUT_UP;
+        if (safe(engine, x, y, 0, 1)) return GameEngine.INPUT_DOWN;
+        if (!upFirst && safe(engine, x, y, 0, -1)) return GameEngine.INPUT_UP;
+        return GameEngine.INPUT_LEFT;
+    }
+
+    private static boolean safe(GameEngine engine, int x, int y, int dx, int dy) {
+        int tx = x + dx, ty = y + dy;
+        if (tx <= 0) return true;
+        if (!engine.inBounds(tx, ty)) return false;
+        switch (engine.cellKind(tx, ty)) {
+            case GameEngine.CELL_EMPTY: return true;
+            case GameEngine.CELL_DEFENDER:
+                int bx = tx + dx, by = ty + dy;
+                return engine.inBounds(bx, by) && engine.cellKind(bx, by) != GameEngine.CELL_DEFENDER;
+            default: return false;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Microbenchmarks for the hot paths: defender ticks, player moves, field spawning and a full
+ * paint into an offscreen image. Each benchmark warms up, then runs timed batches and reports
+ * ops/sec alongside the bytes allocated per op and the allocation rate, read from the thread's
+ * allocation counter (the same number JMH's GC profiler reports as gc.alloc.rate.norm).
+ *
+ * Usage: java Benchmarks [--warmup ms] [--time ms] [--filter regex]
+ */
+public class Benchmarks {
+
+    static final int[] DEFENDER_COUNTS = { 10, 100, 1000 };
+    static final int[] FIELD_WIDTHS = { GameEngine.GRID_W, 440, 4400 };
+    static final int MAX_TOUCHDOWN_LEVEL = 5; // defendersPerView stops growing here
+    static final int[] SPAWN_FILL_PERCENT = { 25, 50, 90, 100 };
+    static final int[] FAR_CHUNK_INTERVALS = { 4, 0 };
+    static final int[] PAINT_SCALES = { 1, 2, 4 };
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    interface Op {
+        void run();
+    }
+
+    static class Bench {
+        final String name;
+        final Runnable setup;
+        final Op op;
+
+        Bench(String name, Runnable setup, Op op) {
+            this.name = name; this.setup = setup; this.op = op;
+        }
+    }
+
+    // Keeps results observable so the JIT can't drop the work
+    static volatile long sink;
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        long warmupMs = 1000, timeMs = 2000;
+        Pattern filter = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--warmup": warmupMs = Long.parseLong(args[++i]); break;
+                case "--time": timeMs = Long.parseLong(args[++i]); break;
+                case "--filter": filter = Pattern.compile(args[++i]); break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        System.out.printf("%-80s %14s %12s %12s%n", "benchmark", "ops/sec", "B/op", "MB/sec");
+        for (Bench b : benches()) {
+            if (filter != null && !filter.matcher(b.name).find()) continue;
+            b.setup.run();
+            measure(b.op, warmupMs);
+            double[] r = measure(b.op, timeMs);
+            System.out.printf("%-80s %14.0f %12.1f %12.1f%n", b.name, r[0], r[1], r[0] * r[1] / (1024 * 1024));
+        }
+    }
+
+    /** Returns { ops/sec, bytes allocated per op }. */
+    static double[] measure(Op op, long millis) {
+        long ops = 0;
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        long allocStart = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long now;
+        do {
+            for (int i = 0; i < 256; i++) op.run();
+            ops += 256;
+            now = System.nanoTime();
+        } while (now < deadline);
+        long alloc = THREADS.getCurrentThreadAllocatedBytes() - allocStart;
+        return new double[] { ops / ((now - start) / 1e9), (double) alloc / ops };
+    }
+
+    static List<Bench> benches() {
+        List<Bench> list = new ArrayList<>();
+        for (int width : FIELD_WIDTHS) {
+            for (int n : DEFENDER_COUNTS) {
+                String p = "(defenders=" + n + ", width=" + width + ")";
+                for (GameConfig.AiMode ai : GameConfig.AiMode.values()) {
+                    GameEngine tick = engine(width, ai);
+                    // The field holds fewer than the largest rosters; name the bench by what actually spawned
+                    tick.setUpPlay(n, Math.max(1, n / 5));
+                    String tp = "(ai=" + ai + ", defenders=" + tick.defenders.size() + ", width=" + width + ")";
+                    list.add(new Bench("tickDefenders" + tp, () -> tick.setUpPlay(n, Math.max(1, n / 5)), () -> {
+                        if (tick.gameState != GameEngine.GameState.PLAYING) tick.resumePlay();
+                        tick.tickDefenders();
+                    }));
+                }
+
+                // The per-turn cost PURSUIT adds on top of steering: one BFS, here over the whole grid
+                GameEngine layout = engine(width, GameConfig.AiMode.RANDOM_WALK);
+                layout.setUpPlay(n, Math.max(1, n / 5));
+                int[] occupancy = new int[width * GameEngine.VIEW_H];
+                EntityStore ld = layout.defenders, lr = layout.referees;
+                for (int i = 0; i < ld.count; i++) occupancy[ld.y[i] * width + ld.x[i]] = GameEngine.CELL_DEFENDER;
+                for (int i = 0; i < lr.count; i++) occupancy[lr.y[i] * width + lr.x[i]] = GameEngine.CELL_REFEREE;
+                PursuitField field = new PursuitField(width, GameEngine.VIEW_H, 1, width - 2);
+                list.add(new Bench("PursuitField.build(defenders=" + layout.defenders.size() + ", width=" + width + ")", () -> { }, () -> {
+                    field.build(occupancy, layout.player.x, layout.player.y, 1, width - 2);
+                    sink += field.distance(GameEngine.FIELD_START_X, 0);
+                }));
+
+                // Walks a small box so the player stays put over time; a tackle starts a new play
+                GameEngine move = engine(width, GameConfig.AiMode.RANDOM_WALK);
+                int[][] box = { { -1, 0 }, { 0, -1 }, { 1, 0 }, { 0, 1 } };
+                int[] leg = { 0 };
+                list.add(new Bench("movePlayer" + p, () -> move.setUpPlay(n, Math.max(1, n / 5)), () -> {
+                    if (move.gameState != GameEngine.GameState.PLAYING) move.setUpPlay(n, Math.max(1, n / 5));
+                    int[] d = box[leg[0]++ & 3];
+                    move.movePlayer(d[0], d[1]);
+                }));
+
+                GameEngine view = engine(width, GameConfig.AiMode.RANDOM_WALK);
+                TheBestFootballGame game = TheBestFootballGame.offscreen(view);
+                game.setSize(game.getPreferredSize());
+                BufferedImage frame = new BufferedImage(game.getWidth(), game.getHeight(), BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = frame.createGraphics();
+                list.add(new Bench("paintComponent" + p, () -> view.setUpPlay(n, Math.max(1, n / 5)), () -> {
+                    game.paintComponent(g);
+                    sink += frame.getRGB(0, 0);
+                }));
+            }
+
+            // The same frame pre-rendered at 1x, 2x and 4x the standard tile, as a resized or HiDPI window draws it
+            if (width == GameEngine.GRID_W) {
+                for (int k : PAINT_SCALES) {
+                    GameEngine view = engine(width, GameConfig.AiMode.RANDOM_WALK);
+                    TheBestFootballGame game = TheBestFootballGame.offscreen(view);
+                    game.setSize(TheBestFootballGame.sizeForTile(TheBestFootballGame.TILE_SIZE * k));
+                    BufferedImage frame = new BufferedImage(game.getWidth(), game.getHeight(), BufferedImage.TYPE_INT_RGB);
+                    Graphics2D g = frame.createGraphics();
+                    list.add(new Bench("paintComponent(scale=" + k + "x, defenders=100)", () -> view.setUpPlay(100, 20), () -> {
+                        game.paintComponent(g);
+                        sink += frame.getRGB(0, 0);
+                    }));
+                }
+            }
+
+            // One field strip's worth of grass, as the view builds it on a new scale or camera window
+            int stripCols = Math.min(width, 4 * GameEngine.VIEW_W);
+            GrassTexture grass = new GrassTexture(42, 0x03D649, width, GameEngine.VIEW_H,
+                    GameEngine.FIELD_START_X, width - 2, null);
+            for (int k : PAINT_SCALES) {
+                int tile = TheBestFootballGame.TILE_SIZE * k;
+                list.add(new Bench("GrassTexture.render(scale=" + k + "x, cols=" + stripCols + ", width=" + width + ")", () -> { }, () -> {
+                    sink += grass.render(tile, width - stripCols, stripCols).getRGB(0, 0);
+                }));
+            }
+
+            // The standard game's top density (20 per screen) on every width: with far chunks asleep
+            // the cost follows the window, not the field
+            int perField = (int) Math.round(20.0 * width / GameEngine.VIEW_W);
+            for (GameConfig.AiMode ai : GameConfig.AiMode.values()) {
+                for (int far : FAR_CHUNK_INTERVALS) {
+                    for (boolean twoPhase : new boolean[] { false, true }) {
+                        GameEngine dense = engine(width, ai);
+                        dense.config.farChunkInterval = far;
+                        dense.config.twoPhaseTick = twoPhase;
+                        list.add(new Bench("tickDefenders(ai=" + ai + ", density=20/view, far=" + far
+                                + (twoPhase ? ", two-phase" : "") + ", width=" + width + ")",
+                                () -> dense.setUpPlay(perField, perField / 5), () -> {
+                            if (dense.gameState != GameEngine.GameState.PLAYING) dense.resumePlay();
+                            dense.tickDefenders();
+                        }));
+                    }
+                }
+            }
+
+            for (int level = 0; level <= MAX_TOUCHDOWN_LEVEL; level++) {
+                final int touchdowns = level;
+                GameEngine spawn = engine(width, GameConfig.AiMode.RANDOM_WALK);
+                list.add(new Bench("spawnDefendersAndRefs(touchdowns=" + level + ", width=" + width + ")",
+                        () -> spawn.touchdowns = touchdowns, () -> {
+                    spawn.prepareField();
+                    sink += spawn.defenders.size();
+                }));
+            }
+
+            // Rosters sized to a share of the field's cells; 100% leaves no free cell at all
+            int cells = (width - 2 - GameEngine.FIELD_START_X) * GameEngine.VIEW_H;
+            for (int fill : SPAWN_FILL_PERCENT) {
+                int total = cells * fill / 100;
+                GameEngine spawn = engine(width, GameConfig.AiMode.RANDOM_WALK);
+                list.add(new Bench("setUpPlay(fill=" + fill + "%, width=" + width + ")", () -> { }, () -> {
+                    spawn.setUpPlay(total - total / 6, total / 6);
+                    sink += spawn.defenders.size();
+                }));
+            }
+        }
+
+        // One play appended to the stats log, and opening it again to read the leaderboard,
+        // which reads only the header however many records follow it
+        try {
+            File log = File.createTempFile("tbfge-stats", ".bin");
+            log.deleteOnExit();
+            StatsStore stats = new StatsStore(log);
+            int[] plays = { 0 };
+            list.add(new Bench("StatsStore.play", () -> { }, () -> {
+                stats.play(7, 1, true, false, 120, plays[0]);
+                if (++plays[0] % 8 == 0) stats.gameOver(plays[0]);
+            }));
+            list.add(new Bench("StatsStore.open+leaderboard", () -> { }, () -> {
+                try (StatsStore reopened = new StatsStore(log)) {
+                    sink += reopened.topScore(0) + reopened.gamesPlayed();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return list;
+    }
+
+    private static GameEngine engine(int width, GameConfig.AiMode ai) {
+        GameConfig config = new GameConfig();
+        config.fieldWidth = width;
+        config.aiMode = ai;
+        return new GameEngine(42, config);
+    }
+}
@@ -0,0 +1,81 @@
+import java.util.Arrays;
+
+/**
+ * Entity list indices filed by column chunk, so a turn or a frame can visit just the chunks it
+ * cares about instead of the whole roster. Chunk changes requested while a turn is walking the
+ * chunks are queued by move() and applied by flush(), so no entity is skipped or seen twice.
+ */
+class ChunkIndex {
+
+    static final int CHUNK_W = 16;
+
+    private final int[][] members;
+    private final int[] size;
+    private int[] chunkOf = new int[64], slotOf = new int[64];
+    private int[] pendingIndex = new int[16], pendingChunk = new int[16];
+    private int pending;
+
+    ChunkIndex(int gridW) {
+        int chunks = (gridW + CHUNK_W - 1) / CHUNK_W;
+        members = new int[chunks][8];
+        size = new int[chunks];
+    }
+
+    static int chunkOf(int x) { return x / CHUNK_W; }
+
+    int chunks() { return members.length; }
+    int size(int chunk) { return size[chunk]; }
+    int member(int chunk, int i) { return members[chunk][i]; }
+
+    void clear() {
+        Arrays.fill(size, 0);
+        pending = 0;
+    }
+
+    /** Files entity index under the chunk holding column x. Indices are expected to arrive in order from 0. */
+    void add(int index, int x) {
+        if (index >= chunkOf.length) {
+            chunkOf = Arrays.copyOf(chunkOf, Math.max(index + 1, chunkOf.length * 2));
+            slotOf = Arrays.copyOf(slotOf, chunkOf.length);
+        }
+        insert(index, chunkOf(x));
+    }
+
+    /** Notes that entity index now stands in column x; takes effect at the next flush(). */
+    void move(int index, int x) {
+        int chunk = chunkOf(x);
+        if (chunk == chunkOf[index]) return;
+        if (pending == pendingIndex.length) {
+            pendingIndex = Arrays.copyOf(pendingIndex, pending * 2);
+            pendingChunk = Arrays.copyOf(pendingChunk, pending * 2);
+        }
+        pendingIndex[pending] = index;
+        pendingChunk[pending] = chunk;
+        pending++;
+    }
+
+    void flush() {
+        for (int p = 0; p < pending; p++) {
+            int index = pendingIndex[p];
+            remove(index);
+            insert(index, pendingChunk[p]);
+        }
+        pending = 0;
+    }
+
+    private void insert(int index, int chunk) {
+        if (size[chunk] == members[chunk].length) members[chunk] = Arrays.copyOf(members[chunk], size[chunk] * 2);
+        chunkOf[index] = chunk;
+        slotOf[index] = size[chunk];
+        members[chunk][size[chunk]++] = index;
+    }
+
+    // Swap-remove: the chunk's last member takes the freed slot
+    private void remove(int index) {
+        int chunk = chunkOf[index];
+        int slot = slotOf[index];
+        int last = members[chunk][--size[chunk]];
+        members[chunk][slot] = last;
+        slotOf[last] = slot;
+    }
+}
@@ -0,0 +1,76 @@
+import java.util.Arrays;
+
+/**
+ * A roster of defenders or referees as parallel primitive arrays: column, row and packed flags,
+ * indexed 0..count-1. Turns and frames walk them as contiguous ints with no object per entity,
+ * and a new play reuses the same arrays, so spawning only allocates when a roster outgrows
+ * every roster before it.
+ */
+class EntityStore {
+
+    // Flag bits; a referee is never knocked down
+    static final int FACING_RIGHT = 1, KNOCKED_DOWN = 2;
+
+    int[] x = new int[64], y = new int[64], flags = new int[64];
+    int count;
+
+    int size() { return count; }
+
+    boolean facingRight(int i) { return (flags[i] & FACING_RIGHT) != 0; }
+    boolean knockedDown(int i) { return (flags[i] & KNOCKED_DOWN) != 0; }
+
+    void setFacingRight(int i, boolean right) {
+        flags[i] = right ? flags[i] | FACING_RIGHT : flags[i] & ~FACING_RIGHT;
+    }
+
+    void knockDown(int i) { flags[i] |= KNOCKED_DOWN; }
+
+    void clear() { count = 0; }
+
+    /** Appends an entity and returns its index. */
+    int add(int ex, int ey, int f) {
+        ensure(count + 1);
+        x[count] = ex;
+        y[count] = ey;
+        flags[count] = f;
+        return count++;
+    }
+
+    /** Grows or shrinks to n entities; new slots are left for the caller to fill. */
+    void resize(int n) {
+        ensure(n);
+        count = n;
+    }
+
+    /**
+     * Drops every entity at or right of column, and every knocked-down one if knockedDown is set,
+     * in one pass. Survivors keep their order, which keeps tick order, and with it the RNG
+     * sequence and existing recordings, the same as before.
+     */
+    void removeFrom(int column, boolean knockedDown) {
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (x[i] >= column || (knockedDown && knockedDown(i))) continue;
+            x[n] = x[i];
+            y[n] = y[i];
+            flags[n] = flags[i];
+            n++;
+        }
+        count = n;
+    }
+
+    void copyFrom(EntityStore src) {
+        resize(src.count);
+        System.arraycopy(src.x, 0, x, 0, src.count);
+        System.arraycopy(src.y, 0, y, 0, src.count);
+        System.arraycopy(src.flags, 0, flags, 0, src.count);
+    }
+
+    private void ensure(int n) {
+        if (n <= x.length) return;
+        int cap = Math.max(n, x.length * 2);
+        x = Arrays.copyOf(x, cap);
+        y = Arrays.copyOf(y, cap);
+        flags = Arrays.copyOf(flags, cap);
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Turns wall time into engine steps for the real-time drivers: the Swing logic timer, the active
+ * render loop and windowed replays. Game time runs at scale times wall time and stands still
+ * while paused. Every timed transition lives on the engine's tick count, so the kickoff, the
+ * game clock and the defenders all slow down, speed up or freeze together. Headless runs skip
+ * the clock and step as fast as they like.
+ */
+class GameClock {
+
+    private static final long TICK_NANOS = GameEngine.TICK_MS * 1_000_000L;
+
+    private volatile double scale = 1;
+    private volatile boolean paused = false;
+    private long last;      // wall time accounted for so far
+    private double pending; // scaled nanos not yet stepped
+
+    void start(long now) {
+        last = now;
+        pending = 0;
+    }
+
+    /** Engine steps due by now. Wall time that passes while paused is dropped, not caught up later. */
+    int due(long now) {
+        long elapsed = now - last;
+        last = now;
+        if (paused) return 0;
+        pending += elapsed * scale;
+        int steps = (int) (pending / TICK_NANOS);
+        pending -= steps * (double) TICK_NANOS;
+        return steps;
+    }
+
+    /** Wall time since the next step fell due, or a negative number if it isn't due yet. */
+    long lateNanos(long now) {
+        if (paused) return -1;
+        return (long) ((pending + (now - last) * scale - TICK_NANOS) / scale);
+    }
+
+    double scale() { return scale; }
+
+    /** Game seconds per wall second; 2 is double speed. */
+    void setScale(double scale) {
+        if (!(scale > 0)) throw new IllegalArgumentException("Time scale must be positive: " + scale);
+        this.scale = scale;
+    }
+
+    boolean paused() { return paused; }
+    void setPaused(boolean paused) { this.paused = paused; }
+}
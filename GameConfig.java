@@ -0,0 +1,57 @@
+/**
+ * Tunables for one engine: field size, roster size, where the roster is placed and how defenders
+ * move. The defaults reproduce the original game. Field size is fixed when the engine is built,
+ * roster and placement are read when a field is laid out, and AI fields on every turn.
+ */
+class GameConfig {
+
+    /** How defenders choose their moves. */
+    enum AiMode {
+        /** The original wander: 40% of turns a step in a random direction. */
+        RANDOM_WALK,
+        /** Step along the shortest open path to the player, on a share of turns set by pursuitAggression. */
+        PURSUIT
+    }
+
+    /** Where defenders land among the free cells. */
+    enum SpawnDistribution {
+        UNIFORM,
+        /** Denser toward the scoring endzone (low x); each pick is the nearer of two random cells. */
+        TOWARD_ENDZONE
+    }
+
+    // --- Field ---
+    // Total columns including both two-column endzones, and rows. The window only shows
+    // GameEngine.VIEW_H rows, so taller fields are for headless play.
+    int fieldWidth = GameEngine.GRID_W;
+    int fieldRows = GameEngine.VIEW_H;
+
+    // --- Roster ---
+    // Defenders per screen of field (VIEW_W x VIEW_H cells): base + perTouchdown * touchdowns, capped at max
+    int baseDefendersPerView = 10;
+    int defendersPerTouchdown = 2;
+    int maxDefendersPerView = 20;
+    int defendersPerReferee = 5; // at least one referee is always placed
+
+    // --- Placement ---
+    // Cells within this many steps (Chebyshev) of the player's starting cell are kept empty
+    int spawnClearRadius = 0;
+    SpawnDistribution defenderDistribution = SpawnDistribution.UNIFORM;
+
+    // --- Defender AI ---
+    AiMode aiMode = AiMode.RANDOM_WALK;
+    double pursuitAggression = 0.4; // chance per turn that a pursuing defender moves; 1 = every turn
+
+    // --- Chunked Updates ---
+    // Chunks within activeMargin columns of the camera window move every turn. The rest move every
+    // farChunkInterval turns, a different share of them each turn, or stay put until the camera
+    // comes near if it is 0.
+    int activeMargin = ChunkIndex.CHUNK_W;
+    int farChunkInterval = 4;
+
+    // --- Two-Phase Tick ---
+    // Decide every move against the turn's starting grid, in parallel once at least
+    // parallelThreshold entities are due, then resolve and commit in one pass
+    boolean twoPhaseTick = false;
+    int parallelThreshold = 2048;
+}
@@ -0,0 +1,930 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * The game model and rules with no display attached. Time only moves when step() is called,
+ * one TICK_MS slice at a time, so every delay (kickoff whistle, tackle pause, touchdown blink)
+ * is a tick countdown rather than a Swing timer. The Swing panel and the headless runners
+ * both drive this class the same way.
+ */
+public class GameEngine {
+
+    // --- Grid & Dimensions ---
+    static final int VIEW_W = 14;
+    static final int VIEW_H = 7;     // Playable rows
+
+    // Standard field: 2 EndzoneL + 40 Field + 2 EndzoneR = 44 total grid units. GameConfig can
+    // lay out a bigger one; gridW, rows and fieldEndX below are the sizes this engine actually uses.
+    static final int GRID_W = 44;
+    static final int FIELD_START_X = 2;
+    static final int FIELD_END_X = GRID_W - 2;
+
+    // --- Game Constants ---
+    static final int TICK_MS = 25;
+    static final int TURN_DELAY = 500;
+    static final int START_ATTEMPTS = 4;
+    static final int GAME_DURATION = 60;
+    static final int FIRST_DOWN_DISTANCE = 10;
+
+    private static final int TURN_TICKS = TURN_DELAY / TICK_MS;
+    private static final int CLOCK_TICKS = 1000 / TICK_MS;
+    private static final int KICKOFF_TICKS = 3000 / TICK_MS;
+    private static final int SEAL_TICKS = 750 / TICK_MS;
+    private static final int TACKLE_PAUSE_TICKS = 2000 / TICK_MS;
+    private static final int BLINK_TICKS = 625 / TICK_MS;
+
+    // Timers, fired in this order when due on the same tick. All but the seal belong to one state
+    // and are cancelled when the engine leaves it.
+    private static final int T_SEAL = 0, T_KICKOFF = 1, T_CLOCK = 2, T_TURN = 3, T_TACKLE_PAUSE = 4, T_BLINK = 5, TIMERS = 6;
+
+    // --- Inputs ---
+    static final int INPUT_NONE = 0, INPUT_UP = 1, INPUT_DOWN = 2, INPUT_LEFT = 3, INPUT_RIGHT = 4, INPUT_START = 5;
+    // A second player on defense steers the defender nearest the runner; same directions, shifted
+    static final int INPUT_DEFENSE_UP = 6, INPUT_DEFENSE_DOWN = 7, INPUT_DEFENSE_LEFT = 8, INPUT_DEFENSE_RIGHT = 9;
+
+    enum GameState { MENU, READY, PLAYING, TOUCHDOWN, TACKLED, GAMEOVER }
+    enum Sound { CHEER, SEAL, WHISTLE, STEP, THUD }
+
+    interface Listener {
+        void onSound(Sound sound);
+    }
+
+    // --- State Management ---
+    GameState gameState = GameState.MENU;
+    private Listener listener;
+    private boolean changed = false;
+    long tick = 0;
+
+    // Every timed transition: kickoff, game clock, defender turns, tackle pause, touchdown blink
+    private final GameScheduler timers = new GameScheduler(TIMERS);
+
+    // --- Stats & First Down ---
+    int score = 0;
+    int timeRemaining = GAME_DURATION;
+    int touchdowns = 0;
+
+    int firstDownMarkerX;
+    int yardsToGo;
+    int attemptsRemaining;
+
+    // The play in progress, for the stats log
+    private int playStartX, playKnockDowns;
+    private long playStartTick;
+
+    // --- Camera ---
+    int cameraX = 0;
+
+    // Animation State
+    boolean showTDSprite = false;
+    private int tdBlinkCount = 0;
+
+    // Tackle Logic (-1 when nobody is tackling)
+    int tackleX = -1, tackleY = -1;
+
+    // --- Field Size ---
+    final int gridW, rows, fieldEndX;
+
+    // --- Entities ---
+    Player player;
+    final EntityStore defenders = new EntityStore(), referees = new EntityStore();
+
+    // Roster indices filed by column chunk. Chunks near the camera move every turn, the rest only
+    // every config.farChunkInterval turns (or never), staggered so each turn takes its share of
+    // them and a turn costs about the same on any field.
+    final ChunkIndex defenderChunks, refereeChunks;
+    private long turn;
+
+    // --- Occupancy Grid ---
+    // One cell per grid square (y * gridW + x). Holds the kind of blocking entity in the low bits
+    // and its roster index above them. Knocked-down defenders don't block, so they're never stored.
+    static final int CELL_EMPTY = 0, CELL_PLAYER = 1, CELL_DEFENDER = 2, CELL_REFEREE = 3;
+    private static final int CELL_KIND_BITS = 2, CELL_KIND_MASK = (1 << CELL_KIND_BITS) - 1;
+    private final int[] occupancy;
+    private final int[] spawnPool; // scratch for spawn()
+    private final PursuitField pursuit;
+
+    // --- Randomness ---
+    // Everything random comes from one seeded session RNG, split into independent streams so that
+    // spawning and movement don't shift each other's sequences.
+    final long seed;
+    private final SplittableRandom spawnRand, rand;
+    private InputRecording recorder;
+    private GameMetrics metrics;
+    private StatsStore stats;
+    private long entitiesTicked; // defenders and referees visited by turns so far
+
+    final GameConfig config;
+
+    public GameEngine() {
+        this(new SplittableRandom().nextLong());
+    }
+
+    public GameEngine(long seed) {
+        this(seed, new GameConfig());
+    }
+
+    GameEngine(long seed, GameConfig config) {
+        this.seed = seed;
+        this.config = config;
+        gridW = config.fieldWidth;
+        rows = config.fieldRows;
+        if (gridW < VIEW_W || rows < 1) throw new IllegalArgumentException("Field must be at least " + VIEW_W + " columns by 1 row");
+        fieldEndX = gridW - 2;
+        occupancy = new int[gridW * rows];
+        spawnPool = new int[gridW * rows];
+        pursuit = new PursuitField(gridW, rows, 1, gridW - 2);
+        defenderChunks = new ChunkIndex(gridW);
+        refereeChunks = new ChunkIndex(gridW);
+        SplittableRandom session = new SplittableRandom(seed);
+        spawnRand = session.split();
+        rand = session.split();
+        initGameSession();
+    }
+
+    // Copy constructor behind copy()
+    private GameEngine(GameEngine src, long seed) {
+        this(seed, src.config);
+        gameState = src.gameState;
+        tick = src.tick;
+        turn = src.turn;
+        timers.copyFrom(src.timers);
+        score = src.score; timeRemaining = src.timeRemaining; touchdowns = src.touchdowns;
+        firstDownMarkerX = src.firstDownMarkerX; yardsToGo = src.yardsToGo; attemptsRemaining = src.attemptsRemaining;
+        cameraX = src.cameraX;
+        showTDSprite = src.showTDSprite; tdBlinkCount = src.tdBlinkCount;
+        tackleX = src.tackleX; tackleY = src.tackleY;
+        if (src.player == null) return;
+        player = new Player(src.player.x, src.player.y);
+        player.facingLeft = src.player.facingLeft;
+        player.stepLeftFoot = src.player.stepLeftFoot;
+        player.state = src.player.state;
+        defenders.copyFrom(src.defenders);
+        referees.copyFrom(src.referees);
+        rebuildOccupancy();
+    }
+
+    /** A detached copy for look-ahead: same field and counters, its own RNG streams, no listener, recorder, metrics or stats. */
+    GameEngine copy(long seed) {
+        return new GameEngine(this, seed);
+    }
+
+    void setListener(Listener listener) { this.listener = listener; }
+
+    /** Every input() from now on is appended to the recording, tagged with the current tick. */
+    void setRecorder(InputRecording recorder) { this.recorder = recorder; }
+
+    /** Times every step, defender turn and player move into the given metrics from now on. */
+    void setMetrics(GameMetrics metrics) { this.metrics = metrics; }
+
+    /** Logs every finished play and game to the given store from now on. */
+    void setStats(StatsStore stats) { this.stats = stats; }
+
+    /** True if anything visible changed since the last call. */
+    boolean consumeChanged() {
+        boolean c = changed;
+        changed = false;
+        return c;
+    }
+
+    // --- Driving ---
+
+    /** Applies one input immediately: a runner or defense move while playing, or START from the menu / game over screen. */
+    public void input(int cmd) {
+        if (recorder != null) recorder.add(tick, cmd);
+        if (cmd == INPUT_START) {
+            if (gameState == GameState.MENU || gameState == GameState.GAMEOVER) {
+                initGameSession();
+                startFirstGameSequence();
+            }
+            return;
+        }
+        if (gameState != GameState.PLAYING) return;
+        long start = metrics == null ? 0 : System.nanoTime();
+        switch (cmd) {
+            case INPUT_UP: movePlayer(0, -1); break;
+            case INPUT_DOWN: movePlayer(0, 1); break;
+            case INPUT_LEFT: movePlayer(-1, 0); break;
+            case INPUT_RIGHT: movePlayer(1, 0); break;
+            case INPUT_DEFENSE_UP: steerDefender(0, -1); break;
+            case INPUT_DEFENSE_DOWN: steerDefender(0, 1); break;
+            case INPUT_DEFENSE_LEFT: steerDefender(-1, 0); break;
+            case INPUT_DEFENSE_RIGHT: steerDefender(1, 0); break;
+            default: return;
+        }
+        if (metrics != null) metrics.move.record(System.nanoTime() - start);
+    }
+
+    /** Advances game time by one TICK_MS slice. */
+    public void step() {
+        if (metrics == null) { advance(); return; }
+        long start = System.nanoTime();
+        advance();
+        metrics.tick.record(System.nanoTime() - start);
+    }
+
+    private void advance() {
+        tick++;
+        for (int timer; (timer = timers.poll(tick)) >= 0; ) fire(timer);
+    }
+
+    private void fire(int timer) {
+        switch (timer) {
+            case T_SEAL: sound(Sound.SEAL); break;
+            case T_KICKOFF: kickoff(); break;
+            case T_CLOCK: timers.schedule(T_CLOCK, tick, CLOCK_TICKS); tickClock(); break;
+            case T_TURN: timers.schedule(T_TURN, tick, TURN_TICKS); runTurn(); break;
+            case T_TACKLE_PAUSE: resetAfterTackle(player.x); break;
+            case T_BLINK: blinkTouchdown(); break;
+            default: break;
+        }
+    }
+
+    // Every state change goes through here, so a transition still pending for the old state can't fire in the new one
+    private void enter(GameState next) {
+        if (next == gameState) return;
+        switch (gameState) {
+            case READY: timers.cancel(T_KICKOFF); break;
+            case PLAYING: timers.cancel(T_CLOCK); timers.cancel(T_TURN); break;
+            case TACKLED: timers.cancel(T_TACKLE_PAUSE); break;
+            case TOUCHDOWN: timers.cancel(T_BLINK); break;
+            default: break;
+        }
+        gameState = next;
+    }
+
+    public void step(int cmd) {
+        input(cmd);
+        step();
+    }
+
+    private void runTurn() {
+        if (metrics == null) { tickDefenders(); return; }
+        long start = System.nanoTime(), before = entitiesTicked;
+        tickDefenders();
+        metrics.turnTicked(System.nanoTime() - start, entitiesTicked - before);
+    }
+
+    private void sound(Sound s) {
+        if (listener != null) listener.onSound(s);
+    }
+
+    // --- Game Sequences ---
+
+    private void initGameSession() {
+        score = 0;
+        timeRemaining = GAME_DURATION;
+        touchdowns = 0;
+        timers.cancelAll();
+        gameState = GameState.MENU;
+        changed = true;
+    }
+
+    void prepareField() {
+        player = new Player(fieldEndX, rows / 2);
+        cameraX = gridW - VIEW_W;
+
+        Arrays.fill(occupancy, CELL_EMPTY);
+        occupy(CELL_PLAYER, 0, player.x, player.y);
+        spawnDefendersAndRefs();
+
+        // Initial First Down setup
+        firstDownMarkerX = player.x - FIRST_DOWN_DISTANCE;
+        attemptsRemaining = START_ATTEMPTS;
+
+        if (firstDownMarkerX < FIELD_START_X) firstDownMarkerX = FIELD_START_X;
+
+        if (firstDownMarkerX == FIELD_START_X) {
+            yardsToGo = player.x - (FIELD_START_X - 1);
+        } else {
+            yardsToGo = player.x - firstDownMarkerX;
+        }
+
+        tackleX = tackleY = -1;
+        timers.cancelAll();
+        changed = true;
+    }
+
+    private void startFirstGameSequence() {
+        prepareField();
+        enter(GameState.READY);
+        sound(Sound.CHEER);
+        timers.schedule(T_SEAL, tick, SEAL_TICKS);
+        timers.schedule(T_KICKOFF, tick, KICKOFF_TICKS);
+    }
+
+    private void resetPlaySequence() {
+        prepareField();
+        enter(GameState.READY);
+        timers.schedule(T_KICKOFF, tick, KICKOFF_TICKS);
+    }
+
+    private void kickoff() {
+        sound(Sound.WHISTLE);
+        enter(GameState.PLAYING);
+        playStartX = player.x;
+        playStartTick = tick;
+        playKnockDowns = 0;
+        timers.schedule(T_CLOCK, tick, CLOCK_TICKS);
+        timers.schedule(T_TURN, tick, TURN_TICKS);
+        changed = true;
+    }
+
+    private void tickClock() {
+        if (gameState == GameState.PLAYING && timeRemaining > 0) {
+            timeRemaining--;
+            if (timeRemaining <= 0) gameOver();
+        }
+        changed = true;
+    }
+
+    private void blinkTouchdown() {
+        tdBlinkCount++;
+        showTDSprite = (tdBlinkCount % 2 != 0);
+        changed = true;
+
+        if (tdBlinkCount >= 8) {
+            resetPlaySequence();
+        } else {
+            timers.schedule(T_BLINK, tick, BLINK_TICKS);
+        }
+    }
+
+    private void resetAfterTackle(int newPlayerX) {
+        // 1. Clear entities
+        defenders.removeFrom(newPlayerX, true);
+        for (int i = 0; i < defenders.count; i++) defenders.setFacingRight(i, true);
+        referees.removeFrom(newPlayerX, false);
+        for (int i = 0; i < referees.count; i++) referees.setFacingRight(i, true);
+        tackleX = tackleY = -1;
+
+        rebuildOccupancy();
+
+        // 2. Determine Logic
+        if (newPlayerX < FIELD_START_X) {
+            scoreTouchdown();
+            return;
+        }
+
+        // Player moves towards the endzone (decreasing X). First down is achieved if newPlayerX is
+        // less than or equal to the previous firstDownMarkerX.
+        if (newPlayerX <= firstDownMarkerX) {
+            // FIRST DOWN (Player reached or passed the marker)
+            firstDownMarkerX = newPlayerX - FIRST_DOWN_DISTANCE;
+            attemptsRemaining = START_ATTEMPTS;
+        } else {
+            // Failed to convert
+            attemptsRemaining--;
+        }
+
+        if (firstDownMarkerX < FIELD_START_X) {
+            firstDownMarkerX = FIELD_START_X;
+        }
+
+        // Check Turnover
+        if (attemptsRemaining <= 0) {
+            gameOver();
+            return;
+        }
+
+        // Calculate yardsToGo for display
+        if (firstDownMarkerX == FIELD_START_X) {
+            yardsToGo = newPlayerX - (FIELD_START_X - 1);
+        } else {
+            yardsToGo = newPlayerX - firstDownMarkerX;
+        }
+
+        // Reset player
+        moveOccupant(player.x, player.y, newPlayerX, rows / 2);
+        player.x = newPlayerX;
+        player.y = rows / 2;
+        player.facingLeft = true;
+        player.state = Player.State.STAND;
+
+        updateCamera();
+
+        enter(GameState.READY);
+        timers.schedule(T_KICKOFF, tick, KICKOFF_TICKS);
+        changed = true;
+    }
+
+    /** Lays out a fresh play with an explicit roster and jumps straight to PLAYING. For benchmarks and tools. */
+    void setUpPlay(int totalDefenders, int totalReferees) {
+        prepareField();
+        Arrays.fill(occupancy, CELL_EMPTY);
+        occupy(CELL_PLAYER, 0, player.x, player.y);
+        spawn(totalDefenders, totalReferees);
+        enter(GameState.PLAYING);
+        playStartX = player.x;
+        playStartTick = tick;
+        playKnockDowns = 0;
+        timers.schedule(T_CLOCK, tick, CLOCK_TICKS);
+        timers.schedule(T_TURN, tick, TURN_TICKS);
+    }
+
+    /** Clears a tackle and carries on with the same field, skipping the reset. For benchmarks that tick in a loop. */
+    void resumePlay() {
+        tackleX = tackleY = -1;
+        enter(GameState.PLAYING);
+        if (!timers.pending(T_CLOCK)) timers.schedule(T_CLOCK, tick, CLOCK_TICKS);
+        if (!timers.pending(T_TURN)) timers.schedule(T_TURN, tick, TURN_TICKS);
+    }
+
+    private void spawnDefendersAndRefs() {
+        double fieldRatio = (double) gridW / VIEW_W * rows / VIEW_H;
+        int defendersPerView = Math.min(config.maxDefendersPerView, config.baseDefendersPerView + touchdowns * config.defendersPerTouchdown);
+        int totalDefenders = (int) Math.round(defendersPerView * fieldRatio);
+        spawn(totalDefenders, Math.max(1, totalDefenders / config.defendersPerReferee));
+    }
+
+    // Places the roster by drawing from a pool of the free field cells with a partial Fisher-Yates
+    // shuffle: one draw per entity, however full the field is. If the pool runs out the roster is cut short.
+    private void spawn(int totalDefenders, int totalReferees) {
+        defenders.clear();
+        referees.clear();
+        defenderChunks.clear();
+        refereeChunks.clear();
+
+        int free = 0;
+        int r = config.spawnClearRadius;
+        for (int y = 0; y < rows; y++) {
+            for (int x = FIELD_START_X; x < fieldEndX; x++) {
+                if (isOccupied(x, y)) continue;
+                if (Math.abs(x - player.x) <= r && Math.abs(y - player.y) <= r) continue;
+                spawnPool[free++] = y * gridW + x;
+            }
+        }
+
+        totalDefenders = Math.min(totalDefenders, free);
+        totalReferees = Math.min(totalReferees, free - totalDefenders);
+        boolean towardEndzone = config.defenderDistribution == GameConfig.SpawnDistribution.TOWARD_ENDZONE;
+
+        int next = 0;
+        for (int i = 0; i < totalDefenders; i++, next++) {
+            int cell = drawSpawnCell(next, free, towardEndzone);
+            int index = defenders.add(cell % gridW, cell / gridW, EntityStore.FACING_RIGHT);
+            occupy(CELL_DEFENDER, index, cell % gridW, cell / gridW);
+            defenderChunks.add(index, cell % gridW);
+        }
+        for (int i = 0; i < totalReferees; i++, next++) {
+            int cell = drawSpawnCell(next, free, false);
+            int index = referees.add(cell % gridW, cell / gridW, EntityStore.FACING_RIGHT);
+            occupy(CELL_REFEREE, index, cell % gridW, cell / gridW);
+            refereeChunks.add(index, cell % gridW);
+        }
+    }
+
+    // Swaps a random cell from spawnPool[next..free) into slot next and returns it
+    private int drawSpawnCell(int next, int free, boolean towardEndzone) {
+        int j = next + spawnRand.nextInt(free - next);
+        if (towardEndzone) {
+            int k = next + spawnRand.nextInt(free - next);
+            if (spawnPool[k] % gridW < spawnPool[j] % gridW) j = k;
+        }
+        int cell = spawnPool[j];
+        spawnPool[j] = spawnPool[next];
+        spawnPool[next] = cell;
+        return cell;
+    }
+
+    /** A hash over everything that affects future play, for checking that two runs stayed in lockstep. */
+    long stateHash() {
+        long h = 0xcbf29ce484222325L;
+        h = mix(h, tick); h = mix(h, gameState.ordinal()); h = mix(h, score); h = mix(h, timeRemaining);
+        h = mix(h, touchdowns); h = mix(h, firstDownMarkerX); h = mix(h, yardsToGo); h = mix(h, attemptsRemaining);
+        h = mix(h, cameraX); h = mix(h, tackleX); h = mix(h, tackleY);
+        h = mix(h, turn); for (int t = 0; t < TIMERS; t++) h = mix(h, timers.remaining(t, tick));
+        if (player != null) {
+            h = mix(h, player.x); h = mix(h, player.y); h = mix(h, player.state.ordinal());
+            h = mix(h, player.facingLeft ? 1 : 0); h = mix(h, player.stepLeftFoot ? 1 : 0);
+        }
+        for (int i = 0; i < defenders.count; i++) {
+            h = mix(h, defenders.x[i]); h = mix(h, defenders.y[i]); h = mix(h, defenders.flags[i]);
+        }
+        for (int i = 0; i < referees.count; i++) {
+            h = mix(h, referees.x[i]); h = mix(h, referees.y[i]); h = mix(h, referees.flags[i]);
+        }
+        return h;
+    }
+
+    private static long mix(long h, long v) {
+        return (h ^ v) * 0x100000001b3L;
+    }
+
+    // --- Occupancy ---
+
+    boolean isOccupied(int x, int y) {
+        return occupancy[y * gridW + x] != CELL_EMPTY;
+    }
+
+    int cellKind(int x, int y) {
+        return occupancy[y * gridW + x] & CELL_KIND_MASK;
+    }
+
+    // Index of the standing defender on the cell, or -1
+    private int defenderAt(int x, int y) {
+        int cell = occupancy[y * gridW + x];
+        return (cell & CELL_KIND_MASK) == CELL_DEFENDER ? cell >>> CELL_KIND_BITS : -1;
+    }
+
+    private void occupy(int kind, int index, int x, int y) {
+        occupancy[y * gridW + x] = (index << CELL_KIND_BITS) | kind;
+    }
+
+    private void vacate(int x, int y) {
+        occupancy[y * gridW + x] = CELL_EMPTY;
+    }
+
+    private void moveOccupant(int fromX, int fromY, int toX, int toY) {
+        int from = fromY * gridW + fromX;
+        int cell = occupancy[from];
+        occupancy[from] = CELL_EMPTY;
+        occupancy[toY * gridW + toX] = cell;
+    }
+
+    // Indices shift after removals, and network mirrors overwrite the rosters outright, so
+    // re-stamp every blocking entity and re-file every chunk.
+    void rebuildOccupancy() {
+        Arrays.fill(occupancy, CELL_EMPTY);
+        defenderChunks.clear();
+        refereeChunks.clear();
+        occupy(CELL_PLAYER, 0, player.x, player.y);
+        for (int i = 0; i < defenders.count; i++) {
+            if (!defenders.knockedDown(i)) occupy(CELL_DEFENDER, i, defenders.x[i], defenders.y[i]);
+            defenderChunks.add(i, defenders.x[i]);
+        }
+        for (int i = 0; i < referees.count; i++) {
+            occupy(CELL_REFEREE, i, referees.x[i], referees.y[i]);
+            refereeChunks.add(i, referees.x[i]);
+        }
+    }
+
+    boolean inBounds(int x, int y) {
+        return x > 0 && x < gridW - 1 && y >= 0 && y < rows;
+    }
+
+    // --- Rules ---
+
+    void tickDefenders() {
+        if (gameState != GameState.PLAYING) return;
+        turn++;
+
+        // Chunks within activeMargin columns of the camera window are near; the rest only move on their far turn
+        int firstNear = Math.max(0, cameraX - config.activeMargin) / ChunkIndex.CHUNK_W;
+        int lastNear = Math.min(gridW - 1, cameraX + VIEW_W - 1 + config.activeMargin) / ChunkIndex.CHUNK_W;
+
+        // One field per turn serves every near defender; moves made earlier in the turn are caught
+        // by the occupancy check below rather than by rebuilding. Far defenders just wander.
+        boolean pursuing = config.aiMode == GameConfig.AiMode.PURSUIT;
+        if (pursuing) pursuit.build(occupancy, player.x, player.y,
+                firstNear * ChunkIndex.CHUNK_W, Math.min(gridW, (lastNear + 1) * ChunkIndex.CHUNK_W) - 1);
+
+        if (config.twoPhaseTick) {
+            tickTwoPhase(firstNear, lastNear, pursuing);
+            return;
+        }
+
+        for (int c = 0; c < defenderChunks.chunks(); c++) {
+            boolean near = c >= firstNear && c <= lastNear;
+            if (!near && !farDue(c)) continue;
+            for (int i = 0; i < defenderChunks.size(c); i++) {
+                int index = defenderChunks.member(c, i);
+                entitiesTicked++;
+                if (tickDefender(index, pursuing && near)) {
+                    defenderChunks.flush();
+                    return;
+                }
+            }
+        }
+        defenderChunks.flush();
+
+        for (int c = 0; c < refereeChunks.chunks(); c++) {
+            if ((c < firstNear || c > lastNear) && !farDue(c)) continue;
+            for (int i = 0; i < refereeChunks.size(c); i++) {
+                int index = refereeChunks.member(c, i);
+                entitiesTicked++;
+                tickReferee(index);
+            }
+        }
+        refereeChunks.flush();
+        changed = true;
+    }
+
+    // Far chunk c moves on every farChunkInterval-th turn, offset by its index so the far chunks
+    // are spread evenly over the turns instead of all landing on one
+    private boolean farDue(int c) {
+        int interval = config.farChunkInterval;
+        return interval > 0 && (turn + c) % interval == 0;
+    }
+
+    // Returns true if the defender tackled the player, which ends the turn
+    private boolean tickDefender(int index, boolean pursuing) {
+        if (defenders.knockedDown(index)) return false;
+
+        int dx = 0, dy = 0;
+
+        if (pursuing) {
+            if (rand.nextDouble() >= config.pursuitAggression) return false;
+            int k = pursuit.stepToward(occupancy, defenders.x[index], defenders.y[index], rand.nextInt(4));
+            if (k < 0) return false; // boxed in or cut off: hold position
+            dx = PursuitField.DX[k];
+            dy = PursuitField.DY[k];
+        } else {
+            if (rand.nextDouble() < 0.6) return false;
+
+            if (rand.nextBoolean()) dx = rand.nextBoolean() ? 1 : -1;
+            else dy = rand.nextBoolean() ? 1 : -1;
+        }
+
+        return stepDefender(index, dx, dy);
+    }
+
+    // Moves a defender one cell if it's free; returns true if that cell held the player, which is a tackle
+    private boolean stepDefender(int index, int dx, int dy) {
+        if (dx != 0) defenders.setFacingRight(index, dx > 0);
+
+        int tx = defenders.x[index] + dx;
+        int ty = defenders.y[index] + dy;
+
+        if (!inBounds(tx, ty)) return false;
+
+        if (tx == player.x && ty == player.y) {
+            playerTackled(index);
+            return true;
+        }
+
+        if (!isOccupied(tx, ty)) {
+            moveOccupant(defenders.x[index], defenders.y[index], tx, ty);
+            defenders.x[index] = tx;
+            defenders.y[index] = ty;
+            defenderChunks.move(index, tx);
+        }
+        return false;
+    }
+
+    // The defense player's move: the standing defender nearest the runner takes one step
+    private void steerDefender(int dx, int dy) {
+        int nearest = -1, best = Integer.MAX_VALUE;
+        for (int i = 0; i < defenders.count; i++) {
+            if (defenders.knockedDown(i)) continue;
+            int dist = Math.abs(defenders.x[i] - player.x) + Math.abs(defenders.y[i] - player.y);
+            if (dist < best) { best = dist; nearest = i; }
+        }
+        if (nearest < 0) return;
+        stepDefender(nearest, dx, dy);
+        defenderChunks.flush();
+        changed = true;
+    }
+
+    private void tickReferee(int index) {
+        if (rand.nextDouble() < 0.7) return;
+        int rx = (rand.nextBoolean()) ? (rand.nextBoolean() ? 1 : -1) : 0;
+        int ry = (rx == 0) ? (rand.nextBoolean() ? 1 : -1) : 0;
+        if (rx != 0) referees.setFacingRight(index, rx > 0);
+        int tx = referees.x[index] + rx; int ty = referees.y[index] + ry;
+        if (!inBounds(tx, ty)) return;
+        if (!isOccupied(tx, ty)) {
+            moveOccupant(referees.x[index], referees.y[index], tx, ty);
+            referees.x[index] = tx; referees.y[index] = ty;
+            refereeChunks.move(index, tx);
+        }
+    }
+
+    // --- Two-Phase Tick ---
+    // Phase one decides every entity's move against the occupancy grid as it stood at the start of
+    // the turn, touching nothing shared, so it can run on the fork-join pool. Each entity draws
+    // from its own hash of (seed, turn, entity) instead of the shared rand, which makes the result
+    // the same on any number of threads. Phase two resolves and commits in one sequential pass:
+    // when several entities want one cell the lowest index wins (defenders before referees), a
+    // cell vacated this turn can't be entered until the next, and any defender stepping onto the
+    // player makes the lowest-index one the tackler.
+
+    private static final int INTENT_NONE = -1, INTENT_TACKLE = -2;
+    private static final int FACE_KEEP = 0, FACE_RIGHT = 1, FACE_LEFT = 2;
+
+    // Per-turn scratch: work holds entity ids (defender index, or referees offset by REFEREE_ID)
+    private static final int REFEREE_ID = 1 << 30;
+    private int[] work = new int[256], intentCell = new int[256], intentFacing = new int[256];
+    private int[] claim, claimStamp;
+    private int claimTurn;
+
+    private void tickTwoPhase(int firstNear, int lastNear, boolean pursuing) {
+        // Gather the entities due this turn, flagging near defenders in intentFacing for decide()
+        int n = 0;
+        for (int c = 0; c < defenderChunks.chunks(); c++) {
+            boolean near = c >= firstNear && c <= lastNear;
+            if (!near && !farDue(c)) continue;
+            for (int i = 0; i < defenderChunks.size(c); i++) {
+                n = ensureWork(n);
+                work[n] = defenderChunks.member(c, i);
+                intentFacing[n++] = near ? 1 : 0;
+            }
+        }
+        for (int c = 0; c < refereeChunks.chunks(); c++) {
+            if ((c < firstNear || c > lastNear) && !farDue(c)) continue;
+            for (int i = 0; i < refereeChunks.size(c); i++) {
+                n = ensureWork(n);
+                work[n] = REFEREE_ID | refereeChunks.member(c, i);
+                intentFacing[n++] = 0;
+            }
+        }
+
+        entitiesTicked += n;
+
+        // Phase one: intents only
+        if (n >= config.parallelThreshold) {
+            IntStream.range(0, n).parallel().forEach(i -> decide(i, pursuing));
+        } else {
+            for (int i = 0; i < n; i++) decide(i, pursuing);
+        }
+
+        // Phase two: claim each wanted cell for its lowest id, then commit the winners
+        if (claim == null) { claim = new int[gridW * rows]; claimStamp = new int[gridW * rows]; }
+        claimTurn++;
+        int tackler = Integer.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            int cell = intentCell[i];
+            if (cell == INTENT_TACKLE) tackler = Math.min(tackler, work[i]);
+            if (cell < 0) continue;
+            if (claimStamp[cell] != claimTurn || work[i] < claim[cell]) {
+                claimStamp[cell] = claimTurn;
+                claim[cell] = work[i];
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            int id = work[i];
+            int cell = intentCell[i];
+            boolean isReferee = (id & REFEREE_ID) != 0;
+            int index = id & ~REFEREE_ID;
+            EntityStore e = isReferee ? referees : defenders;
+            if (intentFacing[i] != FACE_KEEP) e.setFacingRight(index, intentFacing[i] == FACE_RIGHT);
+            if (cell >= 0 && claim[cell] == id) {
+                moveOccupant(e.x[index], e.y[index], cell % gridW, cell / gridW);
+                e.x[index] = cell % gridW; e.y[index] = cell / gridW;
+                (isReferee ? refereeChunks : defenderChunks).move(index, e.x[index]);
+            }
+        }
+        defenderChunks.flush();
+        refereeChunks.flush();
+
+        if (tackler != Integer.MAX_VALUE) {
+            playerTackled(tackler);
+            return;
+        }
+        changed = true;
+    }
+
+    private int ensureWork(int n) {
+        if (n == work.length) {
+            work = Arrays.copyOf(work, n * 2);
+            intentCell = Arrays.copyOf(intentCell, n * 2);
+            intentFacing = Arrays.copyOf(intentFacing, n * 2);
+        }
+        return n;
+    }
+
+    // Fills intentCell[i] and intentFacing[i] for work[i]. Reads shared state, writes only slot i.
+    // On entry intentFacing[i] is 1 for a defender in a near chunk.
+    private void decide(int i, boolean pursuing) {
+        int id = work[i];
+        long h = mix64(seed ^ mix64(turn * 0x9E3779B97F4A7C15L + id));
+        double roll = (mix64(h + 1) >>> 11) * 0x1.0p-53;
+        long bits = mix64(h + 2);
+        boolean near = intentFacing[i] == 1;
+        intentCell[i] = INTENT_NONE;
+        intentFacing[i] = FACE_KEEP;
+
+        int x, y, dx = 0, dy = 0;
+        boolean isReferee = (id & REFEREE_ID) != 0;
+        if (isReferee) {
+            if (roll < 0.7) return;
+            x = referees.x[id & ~REFEREE_ID]; y = referees.y[id & ~REFEREE_ID];
+            if ((bits & 1) != 0) dx = (bits & 2) != 0 ? 1 : -1;
+            else dy = (bits & 2) != 0 ? 1 : -1;
+        } else {
+            if (defenders.knockedDown(id)) return;
+            x = defenders.x[id]; y = defenders.y[id];
+            if (pursuing && near) {
+                if (roll >= config.pursuitAggression) return;
+                int k = pursuit.stepToward(occupancy, x, y, (int) (bits & 3));
+                if (k < 0) return;
+                dx = PursuitField.DX[k];
+                dy = PursuitField.DY[k];
+            } else {
+                if (roll < 0.6) return;
+                if ((bits & 1) != 0) dx = (bits & 2) != 0 ? 1 : -1;
+                else dy = (bits & 2) != 0 ? 1 : -1;
+            }
+        }
+
+        if (dx > 0) intentFacing[i] = FACE_RIGHT; else if (dx < 0) intentFacing[i] = FACE_LEFT;
+        int tx = x + dx, ty = y + dy;
+        if (!inBounds(tx, ty)) return;
+        if (tx == player.x && ty == player.y) {
+            if (!isReferee) intentCell[i] = INTENT_TACKLE;
+            return;
+        }
+        if (!isOccupied(tx, ty)) intentCell[i] = ty * gridW + tx;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    void movePlayer(int dx, int dy) {
+        if (dx != 0) { player.facingLeft = (dx < 0); player.state = (player.state == Player.State.RUN_SIDE) ? Player.State.STAND : Player.State.RUN_SIDE; }
+        if (dy != 0) { player.state = (dy < 0) ? Player.State.RUN_UP : Player.State.RUN_DOWN; player.stepLeftFoot = !player.stepLeftFoot; }
+        changed = true;
+
+        int tx = player.x + dx;
+        int ty = player.y + dy;
+
+        if (!inBounds(tx, ty)) {
+            if (tx <= 0) scoreTouchdown();
+            return;
+        }
+
+        if (cellKind(tx, ty) == CELL_REFEREE) return;
+
+        int targetDef = defenderAt(tx, ty);
+
+        if (targetDef >= 0) {
+            int bx = tx + dx;
+            int by = ty + dy;
+
+            if (!inBounds(bx, by) || cellKind(bx, by) == CELL_DEFENDER) {
+                playerTackled(targetDef);
+                return;
+            } else {
+                defenders.knockDown(targetDef);
+                vacate(tx, ty);
+                score++;
+                playKnockDowns++;
+                sound(Sound.THUD);
+                moveOccupant(player.x, player.y, tx, ty);
+                player.x = tx; player.y = ty;
+            }
+        } else {
+            moveOccupant(player.x, player.y, tx, ty);
+            player.x = tx; player.y = ty;
+        }
+
+        sound(Sound.STEP);
+        updateCamera();
+
+        if (player.x < FIELD_START_X) scoreTouchdown();
+    }
+
+    private void updateCamera() {
+        int playerScreenX = player.x - cameraX;
+        if (playerScreenX < 9 && cameraX > 0) cameraX--;
+        if (playerScreenX > 11 && cameraX < gridW - VIEW_W) cameraX++;
+    }
+
+    private void playerTackled(int tackler) {
+        endPlay(true, false);
+        sound(Sound.THUD);
+        enter(GameState.TACKLED);
+        tackleX = defenders.x[tackler];
+        tackleY = defenders.y[tackler];
+        timers.schedule(T_TACKLE_PAUSE, tick, TACKLE_PAUSE_TICKS);
+        changed = true;
+    }
+
+    private void scoreTouchdown() {
+        boolean fromPlay = gameState == GameState.PLAYING;
+        sound(Sound.CHEER);
+        enter(GameState.TOUCHDOWN);
+        score += 7;
+        touchdowns++;
+        if (fromPlay) endPlay(false, true);
+        attemptsRemaining = START_ATTEMPTS;
+
+        tdBlinkCount = 0;
+        showTDSprite = true;
+        timers.schedule(T_BLINK, tick, BLINK_TICKS);
+        changed = true;
+    }
+
+    private void gameOver() {
+        if (gameState == GameState.PLAYING) endPlay(false, false); // the clock ran out mid-play
+        enter(GameState.GAMEOVER);
+        if (stats != null) stats.gameOver(score);
+        changed = true;
+    }
+
+    // Yards are columns gained toward the scoring endzone (low x)
+    private void endPlay(boolean tackled, boolean touchdown) {
+        if (stats == null) return;
+        stats.play(playStartX - player.x, playKnockDowns, tackled, touchdown, (int) (tick - playStartTick), score);
+    }
+
+    class Player {
+        int x, y; boolean facingLeft = true, stepLeftFoot = false; State state = State.RUN_SIDE;
+        enum State { STAND, RUN_SIDE, RUN_UP, RUN_DOWN }
+        Player(int x, int y) { this.x = x; this.y = y; }
+    }
+}
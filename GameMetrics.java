@@ -0,0 +1,222 @@
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Always-on runtime instrumentation: latency histograms for logic ticks, defender turns, player
+ * moves, paints, input handling, key-to-state and key-to-pixel delay, sound triggers and timer
+ * lateness, plus counters for per-frame allocation, entities ticked, dropped inputs and repaint
+ * coalescing. Recording is a couple of nanoTime() reads and a few uncontended atomic adds with
+ * no allocation, so it stays on in normal play. Read it over JMX, or through the F3 overlay.
+ */
+class GameMetrics implements GameMetricsMXBean {
+
+    static final String OBJECT_NAME = "TheBestFootballGame:type=GameMetrics";
+    private static final long OVERLAY_REFRESH_NANOS = 500_000_000L;
+
+    /**
+     * Log-linear latency histogram over nanoseconds: 8 buckets per power of two, so any
+     * percentile is within 12.5% of the true value. Safe to record from any thread.
+     */
+    static final class Histogram {
+        private static final int SUB_BITS = 3, SUB = 1 << SUB_BITS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray((64 - SUB_BITS) * SUB);
+        private final LongAdder count = new LongAdder(), sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            buckets.incrementAndGet(bucket(nanos));
+            count.increment();
+            sum.add(nanos);
+            max.accumulate(nanos);
+        }
+
+        long count() { return count.sum(); }
+        long maxNanos() { return max.get(); }
+        double meanNanos() {
+            long n = count.sum();
+            return n == 0 ? 0 : (double) sum.sum() / n;
+        }
+
+        /** Upper edge of the bucket holding the q-th quantile, capped at the max seen. */
+        long percentileNanos(double q) {
+            long n = count.sum();
+            if (n == 0) return 0;
+            long rank = (long) Math.ceil(q * n), seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) return i + 1 == buckets.length() ? max.get() : Math.min(max.get(), lowerBound(i + 1) - 1);
+            }
+            return max.get();
+        }
+
+        void reset() {
+            for (int i = 0; i < buckets.length(); i++) buckets.set(i, 0);
+            count.reset();
+            sum.reset();
+            max.reset();
+        }
+
+        // Values below SUB get a bucket each; above that, SUB buckets per power of two
+        static int bucket(long v) {
+            if (v < SUB) return (int) v;
+            int e = 63 - Long.numberOfLeadingZeros(v);
+            return (e - SUB_BITS + 1) * SUB + (int) ((v >>> (e - SUB_BITS)) & (SUB - 1));
+        }
+
+        static long lowerBound(int bucket) {
+            if (bucket < SUB) return bucket;
+            int e = bucket / SUB + SUB_BITS - 1;
+            return (long) (SUB + bucket % SUB) << (e - SUB_BITS);
+        }
+    }
+
+    // --- Latencies ---
+    final Histogram tick = new Histogram();       // GameEngine.step()
+    final Histogram turn = new Histogram();       // GameEngine.tickDefenders()
+    final Histogram move = new Histogram();       // GameEngine.movePlayer()
+    final Histogram paint = new Histogram();      // one full frame
+    final Histogram input = new Histogram();      // a key or mouse handler
+    final Histogram keyToState = new Histogram(); // key down until the engine applied its command
+    final Histogram keyToPixel = new Histogram(); // key down until the end of the first frame drawn after
+    final Histogram sound = new Histogram();      // handing a trigger to the mixer
+    final Histogram timerLate = new Histogram();  // logic timer firing after its step was due
+
+    private final String[] names = { "tick", "turn", "move", "paint", "input", "keyToState", "keyToPixel", "sound", "timerLate" };
+    private final Histogram[] histograms = { tick, turn, move, paint, input, keyToState, keyToPixel, sound, timerLate };
+
+    // --- Counters ---
+    private final LongAdder allocatedBytes = new LongAdder(), allocationFrames = new LongAdder();
+    private final LongAdder entities = new LongAdder();
+    private final LongAdder repaintsRequested = new LongAdder();
+    private final LongAdder droppedInputs = new LongAdder();
+    private final LongAdder lateTimerFires = new LongAdder();
+
+    // Per-thread allocation counter, where the JVM has one
+    private static final com.sun.management.ThreadMXBean ALLOC = allocationCounter();
+
+    // --- Overlay ---
+    private String[] overlay = new String[0];
+    private long overlayBuiltAt;
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) return null;
+        com.sun.management.ThreadMXBean t = (com.sun.management.ThreadMXBean) threads;
+        return t.isThreadAllocatedMemorySupported() && t.isThreadAllocatedMemoryEnabled() ? t : null;
+    }
+
+    /** Registers with the platform MBean server; a failure is reported and otherwise ignored. */
+    void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (Exception e) {
+            System.out.println("Metrics not exposed over JMX: " + e);
+        }
+    }
+
+    // --- Recording ---
+
+    /** Bytes this thread has allocated so far, or -1 if the JVM can't tell. Pair with frameAllocated(). */
+    static long threadAllocatedBytes() {
+        return ALLOC == null ? -1 : ALLOC.getCurrentThreadAllocatedBytes();
+    }
+
+    void frameAllocated(long startBytes) {
+        if (startBytes < 0) return;
+        allocatedBytes.add(ALLOC.getCurrentThreadAllocatedBytes() - startBytes);
+        allocationFrames.increment();
+    }
+
+    void turnTicked(long nanos, long entitiesProcessed) {
+        turn.record(nanos);
+        entities.add(entitiesProcessed);
+    }
+
+    void repaintRequested() { repaintsRequested.increment(); }
+
+    /** A command arrived with the input buffer already full. */
+    void inputDropped() { droppedInputs.increment(); }
+
+    /** The timer ran late enough that more than one step was due. */
+    void lateTimerFire() { lateTimerFires.increment(); }
+
+    // --- MXBean ---
+
+    public Map<String, Double> getLatencyMicros() {
+        Map<String, Double> m = new LinkedHashMap<>();
+        for (int i = 0; i < histograms.length; i++) {
+            Histogram h = histograms[i];
+            m.put(names[i] + ".count", (double) h.count());
+            m.put(names[i] + ".mean", h.meanNanos() / 1e3);
+            m.put(names[i] + ".p50", h.percentileNanos(0.50) / 1e3);
+            m.put(names[i] + ".p90", h.percentileNanos(0.90) / 1e3);
+            m.put(names[i] + ".p99", h.percentileNanos(0.99) / 1e3);
+            m.put(names[i] + ".max", h.maxNanos() / 1e3);
+        }
+        return m;
+    }
+
+    public long getTicks() { return tick.count(); }
+    public long getFrames() { return paint.count(); }
+
+    public double getAllocatedBytesPerFrame() {
+        long frames = allocationFrames.sum();
+        return frames == 0 ? 0 : (double) allocatedBytes.sum() / frames;
+    }
+
+    public long getEntitiesProcessed() { return entities.sum(); }
+
+    public double getEntitiesPerTurn() {
+        long turns = turn.count();
+        return turns == 0 ? 0 : (double) entities.sum() / turns;
+    }
+
+    public long getRepaintsRequested() { return repaintsRequested.sum(); }
+
+    /** Requests Swing folded into another paint. Paints the system asks for on its own can hide a few. */
+    public long getRepaintsCoalesced() { return Math.max(0, repaintsRequested.sum() - paint.count()); }
+
+    public long getLateTimerFires() { return lateTimerFires.sum(); }
+
+    public long getDroppedInputs() { return droppedInputs.sum(); }
+
+    public void reset() {
+        for (Histogram h : histograms) h.reset();
+        allocatedBytes.reset();
+        allocationFrames.reset();
+        entities.reset();
+        repaintsRequested.reset();
+        lateTimerFires.reset();
+        droppedInputs.reset();
+    }
+
+    // --- Overlay ---
+
+    /** Text for the debug overlay, rebuilt at most twice a second so drawing it costs next to nothing. */
+    String[] overlayLines() {
+        long now = System.nanoTime();
+        if (overlay.length > 0 && now - overlayBuiltAt < OVERLAY_REFRESH_NANOS) return overlay;
+        overlayBuiltAt = now;
+        String[] lines = new String[histograms.length + 3];
+        lines[0] = String.format("%-9s %8s %8s %8s %8s", "us", "p50", "p99", "max", "count");
+        for (int i = 0; i < histograms.length; i++) {
+            Histogram h = histograms[i];
+            lines[i + 1] = String.format("%-9s %8.1f %8.1f %8.1f %8d", names[i],
+                    h.percentileNanos(0.50) / 1e3, h.percentileNanos(0.99) / 1e3, h.maxNanos() / 1e3, h.count());
+        }
+        lines[histograms.length + 1] = String.format("alloc/frame %.1f KB, entities/turn %.1f",
+                getAllocatedBytesPerFrame() / 1024, getEntitiesPerTurn());
+        lines[histograms.length + 2] = String.format("repaints %d (%d coalesced), late timer fires %d, dropped inputs %d",
+                getRepaintsRequested(), getRepaintsCoalesced(), getLateTimerFires(), getDroppedInputs());
+        overlay = lines;
+        return lines;
+    }
+}
@@ -0,0 +1,23 @@
+import java.util.Map;
+
+/**
+ * The JMX face of GameMetrics, registered as TheBestFootballGame:type=GameMetrics. Latencies are
+ * in microseconds; counters run from startup or the last reset().
+ */
+public interface GameMetricsMXBean {
+
+    /** Count, mean, p50, p90, p99 and max per histogram, keyed "name.stat", e.g. "paint.p99". */
+    Map<String, Double> getLatencyMicros();
+
+    long getTicks();
+    long getFrames();
+    double getAllocatedBytesPerFrame();
+    long getEntitiesProcessed();
+    double getEntitiesPerTurn();
+    long getRepaintsRequested();
+    long getRepaintsCoalesced();
+    long getLateTimerFires();
+    long getDroppedInputs();
+
+    void reset();
+}
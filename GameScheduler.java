@@ -0,0 +1,55 @@
+import java.util.Arrays;
+
+/**
+ * Game-time timers for the engine's delayed transitions. Deadlines are engine ticks, so timers
+ * stand still whenever the engine isn't stepped and run as fast as it is driven. Each timer id
+ * has at most one pending deadline and scheduling it again replaces it; timers due on the same
+ * tick fire in id order. A fixed table rather than a wheel or a queue: the engine has a handful
+ * of timers, and polling one is cheaper than any structure over them.
+ */
+class GameScheduler {
+
+    private final long[] due; // tick the timer fires on; 0 = idle
+    private long next = Long.MAX_VALUE; // no timer fires before this tick
+
+    GameScheduler(int timers) {
+        due = new long[timers];
+    }
+
+    void copyFrom(GameScheduler src) {
+        System.arraycopy(src.due, 0, due, 0, due.length);
+        next = src.next;
+    }
+
+    /** Fires timer id delayTicks ticks after now, replacing any deadline it had. */
+    void schedule(int id, long now, int delayTicks) {
+        due[id] = now + delayTicks;
+        next = Math.min(next, due[id]);
+    }
+
+    void cancel(int id) { due[id] = 0; }
+
+    void cancelAll() {
+        Arrays.fill(due, 0);
+        next = Long.MAX_VALUE;
+    }
+
+    boolean pending(int id) { return due[id] != 0; }
+
+    /** Ticks until timer id fires, or 0 if it's idle. */
+    long remaining(int id, long now) { return due[id] == 0 ? 0 : due[id] - now; }
+
+    /** Clears and returns the first timer due by now, or -1 once none is. Timers fired in between may schedule or cancel others. */
+    int poll(long now) {
+        if (now < next) return -1;
+        for (int id = 0; id < due.length; id++) {
+            if (due[id] != 0 && due[id] <= now) {
+                due[id] = 0;
+                return id;
+            }
+        }
+        next = Long.MAX_VALUE;
+        for (long d : due) if (d != 0) next = Math.min(next, d);
+        return -1;
+    }
+}
@@ -0,0 +1,230 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The field's grass, generated straight into the pixels of an INT_RGB image: mowing stripes down
+ * the field of play, wear near both goal lines, and the small dark smudges of the original tile.
+ * The pattern is laid out in standard-tile pixels across the whole field width and every pixel is
+ * a pure function of (seed, position), so any window of columns at any tile size comes out the
+ * same however it is split into row bands, and large images are filled in parallel.
+ */
+class GrassTexture {
+
+    private static final int STD = TheBestFootballGame.TILE_SIZE;
+    private static final int STRIPE_COLS = 2;         // columns per mowing stripe
+    private static final int STRIPE_LIFT = 7;         // added to each channel on the light stripes
+    private static final int SMUDGE_DARKEN = 15;
+    private static final double SMUDGE_CHANCE = 0.2;  // per 2x2 cell, as in the original tile
+    private static final long SMUDGE_THRESHOLD = (long) (SMUDGE_CHANCE * (1 << 24));
+    private static final int WEAR_PX = 3 * STD;       // how far wear reaches either side of a goal line
+    private static final int PATCH_SHIFT = 3;         // wear varies over 8x8 standard-pixel patches
+    private static final int WORN_R = 166, WORN_G = 178, WORN_B = 82;
+    private static final int PARALLEL_PIXELS = 1 << 18;
+    private static final int CACHE_MAGIC = 0x47525331; // "GRS1"
+
+    private final long seed, seedMix;
+    private final int baseRgb;
+    private final int gridW, rows, fieldStartX, fieldEndX;
+    private final File cacheDir;
+
+    /** cacheDir may be null for no on-disk caching. */
+    GrassTexture(long seed, int baseRgb, int gridW, int rows, int fieldStartX, int fieldEndX, File cacheDir) {
+        this.seed = seed;
+        seedMix = mix64(seed);
+        this.baseRgb = baseRgb & 0xFFFFFF;
+        this.gridW = gridW;
+        this.rows = rows;
+        this.fieldStartX = fieldStartX;
+        this.fieldEndX = fieldEndX;
+        this.cacheDir = cacheDir;
+    }
+
+    /** Grass for columns firstCol until firstCol + cols, all rows, at the given tile size. */
+    BufferedImage render(int tile, int firstCol, int cols) {
+        int w = cols * tile, h = rows * tile;
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        // Taking the array unmanages the image; callers blit it once into an accelerated strip
+        int[] data = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+        File cached = cacheFile(tile, firstCol, cols);
+        if (cached != null && readCache(cached, data)) return img;
+
+        long x0 = (long) firstCol * tile;
+        int cpus = Runtime.getRuntime().availableProcessors();
+        if ((long) w * h < PARALLEL_PIXELS || cpus == 1) {
+            fill(data, w, tile, x0, 0, h);
+        } else {
+            int bands = Math.min(h, 4 * cpus);
+            IntStream.range(0, bands).parallel().forEach(b -> fill(data, w, tile, x0, h * b / bands, h * (b + 1) / bands));
+        }
+        if (cached != null) writeCache(cached, data);
+        return img;
+    }
+
+    // Rows y0 until y1. Each standard-pixel row is computed once into a scratch row and stretched
+    // across every output row that maps to it, so a scaled-up texture costs little more than the
+    // standard one. What depends on the column alone (stripes, distance to a goal line) is worked
+    // out once per band, and smudge and wear-patch hashes once per cell rather than per pixel.
+    private void fill(int[] data, int w, int tile, long x0, int y0, int y1) {
+        long u0 = x0 * STD / tile, u1 = (x0 + w - 1) * STD / tile;
+        int n = (int) (u1 - u0 + 1);
+        int[] srcOf = new int[w];
+        for (int x = 0; x < w; x++) srcOf[x] = (int) ((x0 + x) * STD / tile - u0);
+
+        int[] base = new int[n], dark = new int[n];
+        float[] wearU = new float[n];
+        int[] worn = new int[n]; // indexes of the columns near a goal line
+        int wornCount = 0;
+        for (int i = 0; i < n; i++) {
+            long u = u0 + i;
+            int col = (int) (u / STD);
+            int lift = col >= fieldStartX && col < fieldEndX && ((col - fieldStartX) / STRIPE_COLS & 1) == 0 ? STRIPE_LIFT : 0;
+            base[i] = shade(baseRgb, lift);
+            dark[i] = shade(baseRgb, lift - SMUDGE_DARKEN);
+            long toGoal = Math.min(Math.abs(u - (long) fieldStartX * STD), Math.abs(u - (long) fieldEndX * STD));
+            if (toGoal < WEAR_PX) {
+                wearU[i] = 1 - (float) toGoal / WEAR_PX;
+                worn[wornCount++] = i;
+            }
+        }
+
+        long a0 = (u0 >> 1) - 1, p0 = u0 >> PATCH_SHIFT;
+        int cells = (int) ((u1 >> 1) - a0 + 1);
+        byte[] upper = new byte[cells], lower = new byte[cells]; // smudge sizes for cell rows cv-1 and cv
+        // Indexed from the first cell's left pixel; pixel i of the row is at i + off
+        boolean[] smudged = new boolean[2 * cells + 2];
+        int off = (int) (u0 - 2 * a0);
+        float[] patch = new float[(int) ((u1 >> PATCH_SHIFT) - p0 + 1)];
+        int[] std = new int[n];
+        int cellRow = Integer.MIN_VALUE, patchRow = -1, prevV = -1;
+        double mid = rows * STD / 2.0;
+        for (int y = y0; y < y1; y++) {
+            int row = y * w;
+            int v = (int) ((long) y * STD / tile);
+            if (v == prevV) {
+                System.arraycopy(data, row - w, data, row, w);
+                continue;
+            }
+            prevV = v;
+            int cv = v >> 1;
+            if (cv != cellRow) {
+                if (cv == cellRow + 1) { byte[] t = upper; upper = lower; lower = t; }
+                else smudges(upper, a0, cv - 1);
+                smudges(lower, a0, cv);
+                cellRow = cv;
+            }
+            if (v >> PATCH_SHIFT != patchRow) {
+                patchRow = v >> PATCH_SHIFT;
+                for (int j = 0; j < patch.length; j++) patch[j] = unit(hash(p0 + j, patchRow, 2));
+            }
+
+            // A smudge of 1 to 3 pixels square starts at the corner of its 2x2 cell and may spill
+            // into the next, so this row takes the ones from its own cell row that reach down to
+            // it and the 3-pixel ones from the row above that reach past a whole cell
+            Arrays.fill(smudged, false);
+            int dv = v & 1;
+            for (int c = 0; c < cells; c++) {
+                int size = lower[c] > dv ? lower[c] : upper[c] > dv + 2 ? upper[c] : 0;
+                for (int k = 2 * c; k < 2 * c + size; k++) smudged[k] = true;
+            }
+            for (int i = 0; i < n; i++) std[i] = smudged[i + off] ? dark[i] : base[i];
+
+            // Worn most where play funnels through the middle rows
+            float wearV = (float) (1 - 0.6 * Math.abs(v - mid) / mid);
+            for (int j = 0; j < wornCount; j++) {
+                int i = worn[j];
+                std[i] = wear(std[i], wearU[i] * wearV * (0.4f + 0.8f * patch[(int) ((u0 + i >> PATCH_SHIFT) - p0)]));
+            }
+            for (int x = 0; x < w; x++) data[row + x] = std[srcOf[x]];
+        }
+    }
+
+    // The size of the smudge starting at each cell of cell row c, or 0 for none
+    private void smudges(byte[] sizes, long a0, int c) {
+        for (int i = 0; i < sizes.length; i++) {
+            long a = a0 + i;
+            if (a < 0 || c < 0) { sizes[i] = 0; continue; }
+            long h = hash(a, c, 1);
+            sizes[i] = (h >>> 40) < SMUDGE_THRESHOLD ? (byte) ((h & 0xFF) % 3 + 1) : 0;
+        }
+    }
+
+    private static int shade(int rgb, int delta) {
+        return clamp((rgb >>> 16) + delta) << 16 | clamp(((rgb >>> 8) & 0xFF) + delta) << 8 | clamp((rgb & 0xFF) + delta);
+    }
+
+    private static int clamp(int c) {
+        return c < 0 ? 0 : c > 255 ? 255 : c;
+    }
+
+    // Blends toward worn turf
+    private static int wear(int rgb, float amount) {
+        int t = (int) (256 * 0.6f * Math.min(1, amount));
+        int r = rgb >>> 16, g = (rgb >>> 8) & 0xFF, b = rgb & 0xFF;
+        r += (WORN_R - r) * t >> 8; g += (WORN_G - g) * t >> 8; b += (WORN_B - b) * t >> 8;
+        return r << 16 | g << 8 | b;
+    }
+
+    private long hash(long a, long b, long salt) {
+        return mix64(seedMix + a * 0x9E3779B97F4A7C15L + b * 0xC2B2AE3D27D4EB4FL + salt * 0x165667B19E3779F9L);
+    }
+
+    private static float unit(long h) {
+        return (h >>> 40) * 0x1.0p-24f;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // --- On-disk cache ---
+    // Raw pixels behind a small header, one file per (seed, color, field, tile, window)
+
+    private File cacheFile(int tile, int firstCol, int cols) {
+        if (cacheDir == null) return null;
+        return new File(cacheDir, String.format("grass-%016x-%06x-%d-%d-%d-%d-%d-%dx%d.bin",
+                seed, baseRgb, gridW, fieldStartX, fieldEndX, tile, firstCol, cols, rows));
+    }
+
+    private static boolean readCache(File file, int[] data) {
+        if (!file.isFile()) return false;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel ch = raf.getChannel()) {
+            if (ch.size() != 8 + 4L * data.length) return false;
+            ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.getInt() != CACHE_MAGIC || buf.getInt() != data.length) return false;
+            buf.asIntBuffer().get(data);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void writeCache(File file, int[] data) {
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw"); FileChannel ch = raf.getChannel()) {
+                ByteBuffer buf = ByteBuffer.allocateDirect(8 + 4 * data.length);
+                buf.putInt(CACHE_MAGIC).putInt(data.length);
+                buf.asIntBuffer().put(data);
+                buf.clear();
+                while (buf.hasRemaining()) ch.write(buf);
+                raf.setLength(buf.capacity());
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Error caching grass texture: " + e.getMessage());
+            tmp.delete();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * Scoreboard, start screen and game-over text, rasterized ahead of time. Scoreboard digits come
+ * from a glyph atlas, and the finished panel is cached until one of its four numbers changes,
+ * so a steady-state frame is a handful of image copies with no Font, Color or String work.
+ * Everything is laid out for the standard 48-pixel tile and drawn at scale times that size.
+ */
+class HudRenderer {
+
+    private static final Font SCORE_FONT = new Font("Impact", Font.PLAIN, 20);
+    private static final Font START_FONT = new Font("Arial", Font.BOLD, 22);
+    private static final Font GAMEOVER_FONT = new Font("Arial", Font.BOLD, 40);
+    private static final Font SUBTITLE_FONT = new Font("Arial", Font.BOLD, 20);
+    private static final Color MENU_COLOR = new Color(1, 128, 1);
+    private static final Color MENU_CIRCLE_COLOR = new Color(1, 96, 1);
+    private static final Color OVERLAY_COLOR = new Color(0, 0, 0, 180);
+
+    // Baselines of the four scoreboard numbers: time, score, yards to go, attempts
+    private static final int[] ROW_BASELINES = { 74, 139, 224, 313 };
+    private static final String GLYPHS = "0123456789-";
+
+    private final GraphicsConfiguration gc;
+    private final int panelW, panelH;
+
+    // Digit atlas: one row of glyphs, each at glyphX[i] with advance glyphW[i]
+    private final BufferedImage atlas;
+    private final int[] glyphX = new int[GLYPHS.length()];
+    private final int[] glyphW = new int[GLYPHS.length()];
+    private final int ascent;
+    private final double scale;
+
+    private final BufferedImage panel;
+    private final BufferedImage panelBackground;
+    private final int[] shown = new int[ROW_BASELINES.length];
+    private boolean panelValid = false;
+
+    private final BufferedImage startScreen, timeUpOverlay, gameOverOverlay, pausedOverlay;
+
+    HudRenderer(GraphicsConfiguration gc, double scale, int windowW, int windowH, int fieldW, int panelW, BufferedImage panelBackground) {
+        this.gc = gc;
+        this.scale = scale;
+        this.panelW = panelW;
+        this.panelH = windowH;
+        this.panelBackground = panelBackground;
+
+        // Measure on a scratch image so the atlas can be sized exactly
+        BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D sg = scratch.createGraphics();
+        Font scoreFont = scaled(SCORE_FONT);
+        FontMetrics fm = sg.getFontMetrics(scoreFont);
+        sg.dispose();
+        ascent = fm.getAscent();
+        int x = 0;
+        for (int i = 0; i < GLYPHS.length(); i++) {
+            glyphX[i] = x;
+            glyphW[i] = fm.charWidth(GLYPHS.charAt(i));
+            x += glyphW[i];
+        }
+        atlas = create(x, fm.getHeight(), Transparency.TRANSLUCENT);
+        Graphics2D ag = atlas.createGraphics();
+        ag.setColor(Color.BLACK);
+        ag.setFont(scoreFont);
+        for (int i = 0; i < GLYPHS.length(); i++) ag.drawString(GLYPHS.substring(i, i + 1), glyphX[i], ascent);
+        ag.dispose();
+
+        panel = create(panelW, panelH, Transparency.OPAQUE);
+
+        startScreen = create(windowW, windowH, Transparency.OPAQUE);
+        Graphics2D g = startScreen.createGraphics();
+        g.setColor(MENU_COLOR);
+        g.fillRect(0, 0, windowW, windowH);
+        g.setColor(MENU_CIRCLE_COLOR);
+        int circleSize = px(280);
+        g.fillOval(windowW/2 - circleSize/2, windowH/2 - circleSize/2, circleSize, circleSize);
+        g.setColor(Color.WHITE);
+        drawCentered(g, scaled(START_FONT), "Click here to start!", windowW/2, windowH/2 + px(8));
+        g.dispose();
+
+        timeUpOverlay = overlay(fieldW, windowH, "TIME'S UP!", "Press SPACE to Restart");
+        gameOverOverlay = overlay(fieldW, windowH, "GAME OVER", "Press SPACE to Restart");
+        pausedOverlay = overlay(fieldW, windowH, "PAUSED", "Press P to Resume");
+    }
+
+    private BufferedImage create(int w, int h, int transparency) {
+        if (gc != null) return gc.createCompatibleImage(w, h, transparency);
+        return new BufferedImage(w, h, transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+
+    private BufferedImage overlay(int w, int h, String msg, String subtitle) {
+        BufferedImage img = create(w, h, Transparency.TRANSLUCENT);
+        Graphics2D g = img.createGraphics();
+        g.setColor(OVERLAY_COLOR);
+        g.fillRect(0, 0, w, h);
+        g.setColor(Color.WHITE);
+        drawCentered(g, scaled(GAMEOVER_FONT), msg, w/2, h/2);
+        drawCentered(g, scaled(SUBTITLE_FONT), subtitle, w/2, h/2 + px(50));
+        g.dispose();
+        return img;
+    }
+
+    private int px(int standard) { return (int) Math.round(standard * scale); }
+
+    private Font scaled(Font f) { return scale == 1 ? f : f.deriveFont((float) (f.getSize2D() * scale)); }
+
+    private static void drawCentered(Graphics g, Font font, String text, int x, int y) {
+        g.setFont(font);
+        g.drawString(text, x - g.getFontMetrics().stringWidth(text)/2, y);
+    }
+
+    void drawStartScreen(Graphics g) {
+        g.drawImage(startScreen, 0, 0, null);
+    }
+
+    void drawGameOver(Graphics g, boolean timeUp) {
+        g.drawImage(timeUp ? timeUpOverlay : gameOverOverlay, 0, 0, null);
+    }
+
+    void drawPaused(Graphics g) {
+        g.drawImage(pausedOverlay, 0, 0, null);
+    }
+
+    void drawScoreboard(Graphics g, int x, int timeRemaining, int score, int yardsToGo, int attemptsRemaining) {
+        if (!panelValid || shown[0] != timeRemaining || shown[1] != score
+                || shown[2] != yardsToGo || shown[3] != attemptsRemaining) {
+            shown[0] = timeRemaining; shown[1] = score; shown[2] = yardsToGo; shown[3] = attemptsRemaining;
+            redrawPanel();
+            panelValid = true;
+        }
+        g.drawImage(panel, x, 0, null);
+    }
+
+    private void redrawPanel() {
+        Graphics2D g = panel.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, panelW, panelH);
+        if (panelBackground != null) g.drawImage(panelBackground, 0, 0, null);
+        for (int row = 0; row < ROW_BASELINES.length; row++) drawNumber(g, shown[row], panelW/2, px(ROW_BASELINES[row]));
+        g.dispose();
+    }
+
+    // Centers the number on x with its baseline on y, copying glyphs out of the atlas
+    private void drawNumber(Graphics g, int value, int x, int y) {
+        long v = Math.abs((long) value);
+        int digits = 1;
+        for (long t = v; t >= 10; t /= 10) digits++;
+
+        int width = value < 0 ? glyphW[10] : 0;
+        for (long t = v, i = 0; i < digits; t /= 10, i++) width += glyphW[(int) (t % 10)];
+
+        int top = y - ascent;
+        int h = atlas.getHeight();
+        int right = x - width/2 + width;
+        for (long t = v, i = 0; i < digits; t /= 10, i++) {
+            int glyph = (int) (t % 10);
+            right -= glyphW[glyph];
+            g.drawImage(atlas, right, top, right + glyphW[glyph], top + h, glyphX[glyph], 0, glyphX[glyph] + glyphW[glyph], h, null);
+        }
+        if (value < 0) {
+            right -= glyphW[10];
+            g.drawImage(atlas, right, top, right + glyphW[10], top + h, glyphX[10], 0, glyphX[10] + glyphW[10], h, null);
+        }
+    }
+}
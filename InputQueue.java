@@ -0,0 +1,94 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timestamped engine commands on their way from the key handlers to the logic step. Any thread
+ * may offer(); one consumer, holding the engine's monitor, polls. Up to maxBuffered commands
+ * wait at a time and later ones are dropped, so mashing keys queues a few moves rather than a
+ * backlog. A held direction repeats on its own after repeatDelay, every repeatInterval, for as
+ * long as nothing else is queued.
+ */
+class InputQueue {
+
+    private final int maxBuffered;
+    private final long repeatDelayNanos, repeatIntervalNanos; // interval 0 = no repeat
+
+    // --- Ring (any thread -> consumer) ---
+    private final int mask;
+    private final AtomicIntegerArray cmds; // command + 1, 0 = empty or not yet published
+    private final AtomicLongArray stamps;
+    private final AtomicInteger tail = new AtomicInteger();
+    private final AtomicInteger size = new AtomicInteger();
+    private int head;
+
+    // --- Held Key ---
+    private volatile int held = GameEngine.INPUT_NONE;
+    private volatile long heldSince;
+    private long repeatSince, nextRepeat; // consumer only
+
+    private long lastStamp;
+
+    InputQueue(int maxBuffered, int repeatDelayMs, int repeatIntervalMs) {
+        if (maxBuffered < 1) throw new IllegalArgumentException("Need room for at least one buffered move: " + maxBuffered);
+        this.maxBuffered = maxBuffered;
+        this.repeatDelayNanos = repeatDelayMs * 1_000_000L;
+        this.repeatIntervalNanos = repeatIntervalMs * 1_000_000L;
+        int capacity = Integer.highestOneBit(maxBuffered - 1) << 1;
+        if (capacity < maxBuffered) capacity = maxBuffered; // maxBuffered == 1
+        mask = capacity - 1;
+        cmds = new AtomicIntegerArray(capacity);
+        stamps = new AtomicLongArray(capacity);
+    }
+
+    /** Queues cmd, stamped with the nanoTime its key went down. Never blocks; false if the buffer is full. */
+    boolean offer(int cmd, long stamp) {
+        if (size.incrementAndGet() > maxBuffered) {
+            size.decrementAndGet();
+            return false;
+        }
+        int slot = tail.getAndIncrement() & mask;
+        stamps.set(slot, stamp);
+        cmds.set(slot, cmd + 1);
+        return true;
+    }
+
+    /** Repeats cmd while it stays held. Pressing another direction takes over the repeat. */
+    void hold(int cmd, long stamp) {
+        heldSince = stamp;
+        held = cmd;
+    }
+
+    void release(int cmd) {
+        if (held == cmd) held = GameEngine.INPUT_NONE;
+    }
+
+    boolean holding(int cmd) { return held == cmd; }
+
+    /** The next command, or INPUT_NONE. lastStamp() then tells when its key went down. Consumer only. */
+    int poll(long now) {
+        int slot = head & mask;
+        int c = cmds.get(slot);
+        if (c != 0) {
+            lastStamp = stamps.get(slot);
+            cmds.set(slot, 0);
+            head++;
+            size.decrementAndGet();
+            return c - 1;
+        }
+
+        int h = held;
+        if (h == GameEngine.INPUT_NONE || repeatIntervalNanos == 0) return GameEngine.INPUT_NONE;
+        long since = heldSince;
+        if (since != repeatSince) {
+            repeatSince = since;
+            nextRepeat = since + repeatDelayNanos;
+        }
+        if (now < nextRepeat) return GameEngine.INPUT_NONE;
+        nextRepeat = Math.max(nextRepeat + repeatIntervalNanos, now);
+        lastStamp = now;
+        return h;
+    }
+
+    long lastStamp() { return lastStamp; }
+}
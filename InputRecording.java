@@ -0,0 +1,125 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A session's seed and field size plus every input, tagged with the engine tick it was applied
+ * at. Together they reproduce the session exactly. The file stores tick deltas as varints and one byte per
+ * input, so an hour of play is a few kilobytes. The final tick, score and state hash are saved
+ * with it so a replay can prove it ended in the same place.
+ */
+class InputRecording {
+
+    private static final int MAGIC = 0x54424652; // "TBFR"
+    private static final int VERSION = 2; // 2 added the field size
+
+    final long seed;
+    final int fieldWidth, fieldRows;
+    private long[] ticks = new long[256];
+    private byte[] inputs = new byte[256];
+    private int count;
+
+    // Filled in by finish() when recording stops
+    long finalTick;
+    int finalScore;
+    long finalHash;
+
+    InputRecording(long seed, int fieldWidth, int fieldRows) {
+        this.seed = seed;
+        this.fieldWidth = fieldWidth;
+        this.fieldRows = fieldRows;
+    }
+
+    /** A config that lays out the same field the recording was made on. */
+    GameConfig config() {
+        GameConfig config = new GameConfig();
+        config.fieldWidth = fieldWidth;
+        config.fieldRows = fieldRows;
+        return config;
+    }
+
+    void add(long tick, int input) {
+        if (count == ticks.length) {
+            ticks = Arrays.copyOf(ticks, count * 2);
+            inputs = Arrays.copyOf(inputs, count * 2);
+        }
+        ticks[count] = tick;
+        inputs[count] = (byte) input;
+        count++;
+    }
+
+    int size() { return count; }
+    long tickAt(int i) { return ticks[i]; }
+    int inputAt(int i) { return inputs[i]; }
+
+    void finish(GameEngine engine) {
+        finalTick = engine.tick;
+        finalScore = engine.score;
+        finalHash = engine.stateHash();
+    }
+
+    void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(seed);
+            out.writeInt(fieldWidth);
+            out.writeInt(fieldRows);
+            out.writeLong(finalTick);
+            out.writeInt(finalScore);
+            out.writeLong(finalHash);
+            out.writeInt(count);
+            long prev = 0;
+            for (int i = 0; i < count; i++) {
+                writeVarLong(out, ticks[i] - prev);
+                out.writeByte(inputs[i]);
+                prev = ticks[i];
+            }
+        }
+    }
+
+    static InputRecording load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException(file + " is not a recording");
+            int version = in.readUnsignedByte();
+            if (version < 1 || version > VERSION) throw new IOException("Unsupported recording version " + version);
+            long seed = in.readLong();
+            InputRecording r = version >= 2
+                    ? new InputRecording(seed, in.readInt(), in.readInt())
+                    : new InputRecording(seed, GameEngine.GRID_W, GameEngine.VIEW_H);
+            r.finalTick = in.readLong();
+            r.finalScore = in.readInt();
+            r.finalHash = in.readLong();
+            int n = in.readInt();
+            long tick = 0;
+            for (int i = 0; i < n; i++) {
+                tick += readVarLong(in);
+                r.add(tick, in.readByte());
+            }
+            return r;
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+    }
+}
@@ -0,0 +1,505 @@
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Two-player mode over TCP. The host runs the only real engine and plays the runner; one client
+ * joins and plays the defense. Its arrow keys steer whichever defender is nearest the runner. The
+ * client sends inputs, and after every logic step the host sends a SnapshotCodec delta. Both ends
+ * use non-blocking NIO on a single thread. Both ping each other twice a second and report
+ * snapshot bandwidth and round-trip time every five seconds.
+ *
+ * With --headless, bots take both seats: the host's runner follows BatchRunner's policy and the
+ * client's defense chases the runner. Run two processes on localhost to test end to end.
+ *
+ * Usage: java NetGame host [--port P] [--headless] [--speed x] [--field-width N]
+ *        java NetGame join <host>[:port] [--headless]
+ */
+public class NetGame {
+
+    static final int DEFAULT_PORT = 7777;
+
+    // Frame types; every frame is a varint length, then the type byte, then its body
+    static final int MSG_HELLO = 0, MSG_SNAPSHOT = 1, MSG_INPUT = 2, MSG_PING = 3, MSG_PONG = 4;
+
+    private static final long PING_NANOS = 500_000_000L;
+    private static final long REPORT_NANOS = 5_000_000_000L;
+    private static final int MAX_FRAME = 1 << 24;
+    private static final int MAX_BACKLOG = 1 << 22; // unsent bytes before a peer counts as stalled
+    private static final int BOT_MOVE_EVERY = 1000 / (4 * GameEngine.TICK_MS); // four moves a second, as in BatchRunner
+
+    interface FrameHandler {
+        void frame(Peer from, int type, ByteBuffer body) throws IOException;
+    }
+
+    /** One end of a connection: length-prefixed frames over a non-blocking channel, plus traffic stats. */
+    static final class Peer {
+        final SocketChannel channel;
+        private final SelectionKey key;
+        private ByteBuffer in = ByteBuffer.allocate(1 << 16);  // filling
+        private ByteBuffer out = ByteBuffer.allocate(1 << 16); // filling; flush() drains it
+        private ByteBuffer frame = ByteBuffer.allocate(1 << 12);
+        long nextPing;
+
+        // Stats for the current report window
+        private long framesSent, bytesSent, maxFrameBytes, bytesReceived;
+        private long rttCount, rttSum, rttMax;
+
+        Peer(SocketChannel channel, Selector selector) throws IOException {
+            this.channel = channel;
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            key = channel.register(selector, SelectionKey.OP_READ, this);
+        }
+
+        /** Starts a frame with room for at least maxBody bytes; fill the buffer and call send(). */
+        ByteBuffer begin(int type, int maxBody) {
+            if (frame.capacity() < maxBody + 1) frame = ByteBuffer.allocate(Math.max(maxBody + 1, frame.capacity() * 2));
+            frame.clear();
+            frame.put((byte) type);
+            return frame;
+        }
+
+        void send() throws IOException {
+            frame.flip();
+            int len = frame.remaining();
+            if (out.remaining() < len + 5) {
+                int need = out.position() + len + 5;
+                if (need > MAX_BACKLOG) throw new IOException("peer stopped reading");
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(need, out.capacity() * 2));
+                out.flip();
+                bigger.put(out);
+                out = bigger;
+            }
+            int start = out.position();
+            SnapshotCodec.writeVarLong(out, len);
+            out.put(frame);
+            int bytes = out.position() - start;
+            framesSent++;
+            bytesSent += bytes;
+            maxFrameBytes = Math.max(maxFrameBytes, bytes);
+        }
+
+        void flush() throws IOException {
+            out.flip();
+            channel.write(out);
+            out.compact();
+            key.interestOps(out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        /** Hands every complete frame received so far to handler; false once the other end has closed. */
+        boolean read(FrameHandler handler) throws IOException {
+            int n = channel.read(in);
+            if (n < 0) return false;
+            bytesReceived += n;
+            in.flip();
+            while (in.hasRemaining()) {
+                in.mark();
+                long len;
+                try {
+                    len = SnapshotCodec.readVarLong(in);
+                } catch (BufferUnderflowException e) {
+                    in.reset();
+                    break;
+                }
+                if (len < 1 || len > MAX_FRAME) throw new IOException("Bad frame length " + len);
+                if (in.remaining() < len) {
+                    in.reset();
+                    break;
+                }
+                int end = in.position() + (int) len, limit = in.limit();
+                in.limit(end);
+                handler.frame(this, in.get(), in);
+                in.limit(limit);
+                in.position(end);
+            }
+            in.compact();
+            if (!in.hasRemaining()) { // a frame bigger than the buffer is on its way
+                ByteBuffer bigger = ByteBuffer.allocate(in.capacity() * 2);
+                in.flip();
+                bigger.put(in);
+                in = bigger;
+            }
+            return true;
+        }
+
+        // --- Ping ---
+
+        void pingIfDue(long now) throws IOException {
+            if (now < nextPing) return;
+            nextPing = now + PING_NANOS;
+            begin(MSG_PING, 8).putLong(now);
+            send();
+        }
+
+        /** Answers pings and times pongs; true if the frame was one of those. */
+        boolean handlePing(int type, ByteBuffer body) throws IOException {
+            if (type == MSG_PING) {
+                begin(MSG_PONG, 8).putLong(body.getLong());
+                send();
+                return true;
+            }
+            if (type == MSG_PONG) {
+                long rtt = System.nanoTime() - body.getLong();
+                rttCount++;
+                rttSum += rtt;
+                rttMax = Math.max(rttMax, rtt);
+                return true;
+            }
+            return false;
+        }
+
+        /** Traffic since the last report; ticks is how far the game advanced in that time. */
+        String report(String who, double secs, long ticks, long snapshots) {
+            String line = String.format("%s: %d snapshots over %d ticks, %.1f B/tick, %d B max frame, %.2f KB/s out, "
+                    + "%.2f KB/s in, rtt %.2f ms avg / %.2f ms max",
+                    who, snapshots, ticks, ticks == 0 ? 0 : (double) bytesSent / ticks, maxFrameBytes,
+                    bytesSent / secs / 1024, bytesReceived / secs / 1024,
+                    rttCount == 0 ? 0 : rttSum / 1e6 / rttCount, rttMax / 1e6);
+            framesSent = bytesSent = maxFrameBytes = bytesReceived = 0;
+            rttCount = rttSum = rttMax = 0;
+            return line;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // already gone
+            }
+        }
+    }
+
+    // --- Host ---
+
+    /** Runs the authoritative engine and serves one defense client at a time. */
+    static final class Host implements FrameHandler {
+        private final GameEngine engine;
+        private final TheBestFootballGame view; // null when headless
+        private final GameClock clock;          // headless pacing; the view has its own
+        private final Selector selector;
+        private final ServerSocketChannel server;
+        private Peer client;
+        private SnapshotCodec codec;
+        private long sentTick = -1;
+        private int sinceMove;
+
+        // Report window
+        private long reportAt, reportTick, snapshots;
+
+        Host(GameEngine engine, TheBestFootballGame view, GameClock clock, int port) throws IOException {
+            this.engine = engine;
+            this.view = view;
+            this.clock = clock;
+            selector = Selector.open();
+            server = ServerSocketChannel.open();
+            server.bind(new InetSocketAddress(port));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+            System.out.println("Hosting on port " + port + "; waiting for the defense to join");
+        }
+
+        void run() throws IOException {
+            long now = System.nanoTime();
+            if (view != null) view.clock.start(now); else clock.start(now);
+            reportAt = now + REPORT_NANOS;
+            while (true) {
+                selector.select(GameEngine.TICK_MS / 4 + 1);
+                for (SelectionKey k : selector.selectedKeys()) {
+                    if (k.isAcceptable()) accept();
+                    else if (k.attachment() == client && client != null) serve(k);
+                }
+                selector.selectedKeys().clear();
+
+                now = System.nanoTime();
+                boolean changed;
+                synchronized (engine) {
+                    if (view != null) view.advance(now);
+                    else if (!advanceHeadless(now)) break;
+                    changed = engine.consumeChanged();
+                    if (client != null && engine.tick != sentTick) sendSnapshot();
+                }
+                if (changed && view != null) view.requestRepaint();
+
+                if (client != null) {
+                    try {
+                        client.pingIfDue(now);
+                        client.flush();
+                    } catch (IOException e) {
+                        drop("connection lost: " + e.getMessage());
+                    }
+                }
+                if (now >= reportAt) report(now);
+            }
+            report(System.nanoTime());
+            if (client != null) client.close();
+        }
+
+        // The headless runner: starts as soon as the defense joins, then plays one game
+        private boolean advanceHeadless(long now) {
+            if (engine.gameState == GameEngine.GameState.MENU && client != null) engine.input(GameEngine.INPUT_START);
+            if (engine.gameState == GameEngine.GameState.GAMEOVER) return false;
+            for (int steps = clock.due(now); steps > 0; steps--) {
+                if (engine.gameState == GameEngine.GameState.PLAYING && ++sinceMove >= BOT_MOVE_EVERY) {
+                    engine.input(BatchRunner.chooseMove(engine));
+                    sinceMove = 0;
+                }
+                engine.step();
+            }
+            return true;
+        }
+
+        private void accept() throws IOException {
+            SocketChannel ch = server.accept();
+            if (ch == null) return;
+            if (client != null) {
+                ch.close(); // one defense at a time
+                return;
+            }
+            client = new Peer(ch, selector);
+            codec = new SnapshotCodec();
+            sentTick = -1;
+            System.out.println("Defense joined from " + ch.getRemoteAddress());
+            client.begin(MSG_HELLO, 10);
+            SnapshotCodec.writeVarLong(client.frame, engine.gridW);
+            SnapshotCodec.writeVarLong(client.frame, engine.rows);
+            client.send();
+        }
+
+        private void serve(SelectionKey k) {
+            try {
+                if (k.isReadable() && !client.read(this)) {
+                    drop("defense left");
+                    return;
+                }
+                if (k.isValid() && k.isWritable()) client.flush();
+            } catch (IOException | RuntimeException e) {
+                drop("connection lost: " + e);
+            }
+        }
+
+        @Override
+        public void frame(Peer from, int type, ByteBuffer body) throws IOException {
+            if (from.handlePing(type, body)) return;
+            if (type != MSG_INPUT) return;
+            int cmd = body.get();
+            // The defense only gets the defense; anything else is ignored
+            if (cmd < GameEngine.INPUT_DEFENSE_UP || cmd > GameEngine.INPUT_DEFENSE_RIGHT) return;
+            synchronized (engine) { engine.input(cmd); }
+        }
+
+        private void sendSnapshot() {
+            int entities = engine.defenders.size() + engine.referees.size();
+            try {
+                codec.encode(engine, client.begin(MSG_SNAPSHOT, 128 + 16 * entities));
+                client.send();
+                snapshots++;
+                sentTick = engine.tick;
+            } catch (IOException e) {
+                drop("connection lost: " + e.getMessage());
+            }
+        }
+
+        private void drop(String why) {
+            System.out.println("Defense disconnected: " + why);
+            client.close();
+            client = null;
+        }
+
+        private void report(long now) {
+            if (client != null) {
+                double secs = (now - reportAt + REPORT_NANOS) / 1e9;
+                System.out.println(client.report("host", secs, engine.tick - reportTick, snapshots));
+            }
+            reportAt = now + REPORT_NANOS;
+            reportTick = engine.tick;
+            snapshots = 0;
+        }
+    }
+
+    // --- Client ---
+
+    /** Mirrors the host's game from snapshots and sends the defense's moves back. */
+    static final class Client implements FrameHandler {
+        private final boolean headless;
+        private final Selector selector;
+        private final Peer host;
+        private final SnapshotCodec codec = new SnapshotCodec();
+        private GameEngine mirror;
+        private volatile TheBestFootballGame view;
+        private long nextBotMove;
+
+        // Report window
+        private long reportAt, reportTick, snapshots;
+
+        Client(String address, int port, boolean headless) throws IOException {
+            this.headless = headless;
+            selector = Selector.open();
+            SocketChannel ch = SocketChannel.open(new InetSocketAddress(address, port)); // blocking connect
+            host = new Peer(ch, selector);
+            System.out.println("Joined " + address + ":" + port + " on defense");
+        }
+
+        void run() throws IOException {
+            reportAt = System.nanoTime() + REPORT_NANOS;
+            while (true) {
+                selector.select(5);
+                selector.selectedKeys().clear();
+                if (!host.read(this)) break;
+
+                long now = System.nanoTime();
+                if (mirror != null) sendMoves(now);
+                host.pingIfDue(now);
+                host.flush();
+                if (now >= reportAt) report(now);
+            }
+            report(System.nanoTime());
+            System.out.println("Host closed the game");
+            host.close();
+        }
+
+        @Override
+        public void frame(Peer from, int type, ByteBuffer body) throws IOException {
+            if (from.handlePing(type, body)) return;
+            if (type == MSG_HELLO) {
+                GameConfig config = new GameConfig();
+                config.fieldWidth = (int) SnapshotCodec.readVarLong(body);
+                config.fieldRows = (int) SnapshotCodec.readVarLong(body);
+                mirror = new GameEngine(0, config);
+                if (!headless) openWindow();
+            } else if (type == MSG_SNAPSHOT && mirror != null) {
+                synchronized (mirror) { codec.decode(body, mirror); }
+                snapshots++;
+                TheBestFootballGame v = view;
+                if (v != null) v.requestRepaint();
+            }
+        }
+
+        private void openWindow() {
+            try {
+                SwingUtilities.invokeAndWait(() -> {
+                    TheBestFootballGame v = new TheBestFootballGame(mirror);
+                    v.removeMouseListener(v); // the host starts games, not us
+                    JFrame frame = new JFrame("The Best Football Game - Defense");
+                    frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+                    frame.setResizable(false);
+                    frame.add(v); frame.pack();
+                    frame.setLocationRelativeTo(null);
+                    frame.setVisible(true);
+                    view = v;
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException("Can't open the defense window", e);
+            }
+        }
+
+        // Arrow keys arrive through the view's input queue, which this thread drains
+        private void sendMoves(long now) throws IOException {
+            TheBestFootballGame v = view;
+            if (v != null) {
+                for (int cmd; (cmd = v.input.poll(now)) != GameEngine.INPUT_NONE; ) {
+                    if (cmd != GameEngine.INPUT_START) sendInput(cmd - GameEngine.INPUT_UP + GameEngine.INPUT_DEFENSE_UP);
+                }
+            } else if (headless && now >= nextBotMove) {
+                nextBotMove = now + 250_000_000L;
+                int cmd;
+                synchronized (mirror) { cmd = chase(mirror); }
+                if (cmd != GameEngine.INPUT_NONE) sendInput(cmd);
+            }
+        }
+
+        private void sendInput(int cmd) throws IOException {
+            host.begin(MSG_INPUT, 1).put((byte) cmd);
+            host.send();
+        }
+
+        // The headless defense: walk the nearest standing defender straight at the runner
+        private static int chase(GameEngine m) {
+            if (m.gameState != GameEngine.GameState.PLAYING || m.player == null) return GameEngine.INPUT_NONE;
+            EntityStore d = m.defenders;
+            int nearest = -1, best = Integer.MAX_VALUE;
+            for (int i = 0; i < d.count; i++) {
+                int dist = Math.abs(d.x[i] - m.player.x) + Math.abs(d.y[i] - m.player.y);
+                if (!d.knockedDown(i) && dist < best) { best = dist; nearest = i; }
+            }
+            if (nearest < 0) return GameEngine.INPUT_NONE;
+            int dx = m.player.x - d.x[nearest], dy = m.player.y - d.y[nearest];
+            if (Math.abs(dx) >= Math.abs(dy)) return dx < 0 ? GameEngine.INPUT_DEFENSE_LEFT : GameEngine.INPUT_DEFENSE_RIGHT;
+            return dy < 0 ? GameEngine.INPUT_DEFENSE_UP : GameEngine.INPUT_DEFENSE_DOWN;
+        }
+
+        private void report(long now) {
+            long tick = mirror == null ? 0 : mirror.tick;
+            double secs = (now - reportAt + REPORT_NANOS) / 1e9;
+            System.out.println(host.report("client", secs, tick - reportTick, snapshots)
+                    + (mirror == null ? "" : ", score " + mirror.score));
+            reportAt = now + REPORT_NANOS;
+            reportTick = tick;
+            snapshots = 0;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || !(args[0].equals("host") || args[0].equals("join"))) {
+            System.err.println("Usage: java NetGame host [--port P] [--headless] [--speed x] [--field-width N]");
+            System.err.println("       java NetGame join <host>[:port] [--headless]");
+            System.exit(2);
+        }
+        boolean hosting = args[0].equals("host");
+        int port = DEFAULT_PORT;
+        String address = "localhost";
+        boolean headless = false;
+        double speed = 1;
+        GameConfig config = new GameConfig();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--headless": headless = true; break;
+                case "--speed": speed = Double.parseDouble(args[++i]); break;
+                case "--field-width": config.fieldWidth = Integer.parseInt(args[++i]); break;
+                default:
+                    if (hosting || args[i].startsWith("--")) {
+                        System.err.println("Unknown argument: " + args[i]);
+                        System.exit(2);
+                    }
+                    int colon = args[i].lastIndexOf(':');
+                    address = colon < 0 ? args[i] : args[i].substring(0, colon);
+                    if (colon >= 0) port = Integer.parseInt(args[i].substring(colon + 1));
+            }
+        }
+
+        if (!hosting) {
+            new Client(address, port, headless).run();
+            System.exit(0);
+        }
+
+        GameEngine engine = new GameEngine(new java.util.SplittableRandom().nextLong(), config);
+        GameClock clock = new GameClock();
+        clock.setScale(speed);
+        TheBestFootballGame view = null;
+        if (!headless) {
+            TheBestFootballGame[] made = new TheBestFootballGame[1];
+            SwingUtilities.invokeAndWait(() -> {
+                made[0] = new TheBestFootballGame(engine);
+                JFrame frame = new JFrame("The Best Football Game - Host");
+                frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+                frame.setResizable(false);
+                frame.add(made[0]); frame.pack();
+                frame.setLocationRelativeTo(null);
+                frame.setVisible(true);
+            });
+            view = made[0];
+            view.clock.setScale(speed);
+        }
+        new Host(engine, view, clock, port).run();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,80 @@
+import java.util.Arrays;
+
+/**
+ * Steps-to-target for every cell of the grid, from one breadth-first search outward from the
+ * target. Occupied cells are obstacles: they get a distance (so a defender standing on one can
+ * read it) but the search never expands through them. Built once per tick and shared by the
+ * whole roster, so each defender's next step is a constant-time look at its four neighbours.
+ */
+class PursuitField {
+
+    static final int UNREACHED = Integer.MAX_VALUE;
+
+    // Neighbour order: left, right, up, down
+    static final int[] DX = { -1, 1, 0, 0 };
+    static final int[] DY = { 0, 0, -1, 1 };
+
+    private final int w, h;
+    private final int minX, maxX; // walkable columns, inclusive
+    private int lo, hi;           // columns covered by the last build, inclusive
+    private final int[] dist;
+    private final int[] queue;
+
+    PursuitField(int w, int h, int minX, int maxX) {
+        this.w = w; this.h = h;
+        this.minX = minX; this.maxX = maxX;
+        dist = new int[w * h];
+        queue = new int[w * h];
+    }
+
+    /**
+     * Rebuilds the field toward (tx, ty), searching only columns fromX..toX so the cost follows
+     * the window rather than the field. A non-zero cell in occupancy is an obstacle.
+     */
+    void build(int[] occupancy, int tx, int ty, int fromX, int toX) {
+        lo = Math.max(minX, fromX);
+        hi = Math.min(maxX, toX);
+        for (int y = 0; y < h; y++) Arrays.fill(dist, y * w + lo, y * w + hi + 1, UNREACHED);
+        int head = 0, tail = 0;
+        int start = ty * w + tx;
+        dist[start] = 0;
+        queue[tail++] = start;
+        while (head < tail) {
+            int c = queue[head++];
+            int cx = c % w, cy = c / w;
+            int d = dist[c] + 1;
+            for (int k = 0; k < 4; k++) {
+                int nx = cx + DX[k], ny = cy + DY[k];
+                if (nx < lo || nx > hi || ny < 0 || ny >= h) continue;
+                int n = ny * w + nx;
+                if (dist[n] != UNREACHED) continue;
+                dist[n] = d;
+                if (occupancy[n] == 0) queue[tail++] = n;
+            }
+        }
+    }
+
+    int distance(int x, int y) {
+        return x < lo || x > hi ? UNREACHED : dist[y * w + x];
+    }
+
+    /**
+     * The neighbour direction (index into DX/DY) that brings (x, y) one step closer to the target
+     * through a cell that is free or is the target itself, or -1 if there is none. Ties are broken
+     * starting from direction first, so callers can vary it to avoid every defender preferring
+     * the same side.
+     */
+    int stepToward(int[] occupancy, int x, int y, int first) {
+        if (x < lo || x > hi) return -1;
+        int here = dist[y * w + x];
+        if (here == UNREACHED) return -1;
+        for (int i = 0; i < 4; i++) {
+            int k = (first + i) & 3;
+            int nx = x + DX[k], ny = y + DY[k];
+            if (nx < lo || nx > hi || ny < 0 || ny >= h) continue;
+            int n = ny * w + nx;
+            if (dist[n] == here - 1 && (occupancy[n] == 0 || dist[n] == 0)) return k;
+        }
+        return -1;
+    }
+}
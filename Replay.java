@@ -0,0 +1,106 @@
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.io.File;
+
+/**
+ * Re-runs a recorded session and checks it ends with the recorded score and state hash.
+ * By default it runs headless as fast as the CPU allows, which doubles as a throughput
+ * benchmark; --realtime plays it back in a window instead, at normal speed or --speed times it.
+ *
+ * Usage: java Replay <recording> [--realtime] [--speed x] [--repeat N]
+ */
+public class Replay {
+
+    /** Walks a recording forward one engine tick at a time. */
+    static final class Cursor {
+        final InputRecording rec;
+        final GameEngine engine;
+        private int next;
+
+        Cursor(InputRecording rec) {
+            this.rec = rec;
+            this.engine = new GameEngine(rec.seed, rec.config());
+        }
+
+        boolean finished() {
+            return engine.tick >= rec.finalTick && next >= rec.size();
+        }
+
+        // Inputs tagged with tick t were applied after t steps, before the next one
+        void advance() {
+            while (next < rec.size() && rec.tickAt(next) == engine.tick) engine.input(rec.inputAt(next++));
+            if (engine.tick < rec.finalTick) engine.step();
+        }
+
+        boolean matches() {
+            return engine.score == rec.finalScore && engine.stateHash() == rec.finalHash;
+        }
+
+        String verdict() {
+            return String.format("replay %s: score %d (recorded %d), hash %016x (recorded %016x)",
+                    matches() ? "OK" : "MISMATCH", engine.score, rec.finalScore, engine.stateHash(), rec.finalHash);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: java Replay <recording> [--realtime] [--speed x] [--repeat N]");
+            System.exit(2);
+        }
+        InputRecording rec = InputRecording.load(new File(args[0]));
+        boolean realtime = false;
+        int repeat = 1;
+        double speed = 1;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--realtime")) realtime = true;
+            else if (args[i].equals("--repeat")) repeat = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--speed")) speed = Double.parseDouble(args[++i]);
+        }
+
+        if (realtime) {
+            GameClock clock = new GameClock();
+            clock.setScale(speed);
+            SwingUtilities.invokeLater(() -> playInWindow(rec, clock));
+            return;
+        }
+
+        Cursor cursor = null;
+        long start = System.nanoTime();
+        for (int r = 0; r < repeat; r++) {
+            cursor = new Cursor(rec);
+            while (!cursor.finished()) cursor.advance();
+        }
+        double secs = (System.nanoTime() - start) / 1e9;
+        long ticks = rec.finalTick * repeat;
+        System.out.println(cursor.verdict());
+        System.out.printf("%d ticks x %d in %.3f s: %.0f ticks/sec, %.0fx real time%n",
+                rec.finalTick, repeat, secs, ticks / secs, ticks * GameEngine.TICK_MS / 1000.0 / secs);
+        if (!cursor.matches()) System.exit(1);
+    }
+
+    private static void playInWindow(InputRecording rec, GameClock clock) {
+        Cursor cursor = new Cursor(rec);
+        // Draws only: a key press or click reaching the engine would fork the replay
+        TheBestFootballGame view = TheBestFootballGame.offscreen(cursor.engine);
+
+        JFrame frame = new JFrame("The Best Football Game - Replay");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setResizable(false);
+        frame.add(view); frame.pack();
+        frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
+
+        clock.start(System.nanoTime());
+        Timer timer = new Timer(GameEngine.TICK_MS, null);
+        timer.addActionListener(e -> {
+            for (int steps = clock.due(System.nanoTime()); steps > 0 && !cursor.finished(); steps--) cursor.advance();
+            if (cursor.engine.consumeChanged()) view.repaint();
+            if (cursor.finished()) {
+                timer.stop();
+                System.out.println(cursor.verdict());
+            }
+        });
+        timer.start();
+    }
+}
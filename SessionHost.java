@@ -0,0 +1,305 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Headless multi-tenant host: thousands of independent sessions in one JVM, each a GameEngine
+ * with its own clock, field and score, going through the usual MENU to GAMEOVER lifecycle.
+ * Sessions are multiplexed over a small pool of worker threads, one per core by default. Every
+ * TICK_MS each worker drains its sessions' queued input and steps them, so a session costs a
+ * GameEngine and a few queue slots, never a thread.
+ *
+ * Input comes from the in-process API (open, input, close) or a line protocol on a loopback
+ * port: "open" answers a session id, "<id> up|down|left|right|start" queues a command,
+ * "<id> state" answers "<id> <state> <score> <time left>", and "close <id>" ends a session.
+ * Every five seconds the host reports sessions per core, how far it keeps up with real time,
+ * step and tick-lateness percentiles, and heap per session.
+ *
+ * Usage: java SessionHost [--sessions N] [--bots] [--workers W] [--speed x (0 = flat out)]
+ *                         [--port P] [--seconds S]
+ */
+public class SessionHost {
+
+    private static final long REPORT_NANOS = 5_000_000_000L;
+    private static final int INPUT_BUFFER = 8;
+    private static final int BOT_MOVE_EVERY = 1000 / (4 * GameEngine.TICK_MS); // four moves a second, as in BatchRunner
+
+    /** One game. Only its worker touches the engine; other threads go through the input queue. */
+    static final class Session {
+        final int id;
+        final GameEngine engine;
+        final InputQueue input = new InputQueue(INPUT_BUFFER, 0, 0);
+        final boolean bot;
+        private int sinceMove;
+        volatile boolean closed;
+
+        // Published for "state" queries and the leaderboard
+        volatile GameEngine.GameState state = GameEngine.GameState.MENU;
+        volatile int score, timeRemaining;
+
+        Session(int id, long seed, boolean bot) {
+            this.id = id;
+            this.engine = new GameEngine(seed);
+            this.bot = bot;
+        }
+    }
+
+    /** Steps its share of the sessions in lockstep with the game clock. */
+    private final class Worker implements Runnable {
+        private final List<Session> sessions = new ArrayList<>();
+        private final ConcurrentLinkedQueue<Session> joining = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void run() {
+            long next = System.nanoTime();
+            while (running) {
+                for (Session s; (s = joining.poll()) != null; ) sessions.add(s);
+                long start = System.nanoTime();
+                if (tickNanos > 0) tickLate.record(start - next);
+                for (int i = sessions.size() - 1; i >= 0; i--) {
+                    Session s = sessions.get(i);
+                    if (s.closed) {
+                        // Swap-remove; order within a worker doesn't matter
+                        sessions.set(i, sessions.get(sessions.size() - 1));
+                        sessions.remove(sessions.size() - 1);
+                        continue;
+                    }
+                    long t = System.nanoTime();
+                    step(s, t);
+                    stepNanos.record(System.nanoTime() - t);
+                }
+                steps.add(sessions.size());
+                if (tickNanos == 0) continue;
+
+                // Fall back into step rather than bursting after a stall
+                next += tickNanos;
+                long now = System.nanoTime();
+                if (next < now - tickNanos) {
+                    lateRounds.increment();
+                    next = now;
+                }
+                while ((now = System.nanoTime()) < next) LockSupport.parkNanos(next - now);
+            }
+        }
+    }
+
+    // --- Sessions ---
+    private final Map<Integer, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final Worker[] workers;
+    private final long tickNanos; // 0 = step as fast as possible
+    private volatile boolean running = true;
+
+    // --- Stats ---
+    private final GameMetrics.Histogram stepNanos = new GameMetrics.Histogram();
+    private final GameMetrics.Histogram tickLate = new GameMetrics.Histogram();
+    private final LongAdder steps = new LongAdder(), lateRounds = new LongAdder();
+    private final LongAdder gamesFinished = new LongAdder(), pointsScored = new LongAdder();
+    private final LongAccumulator bestScore = new LongAccumulator(Math::max, 0);
+
+    SessionHost(int workerCount, double speed) {
+        tickNanos = speed <= 0 ? 0 : (long) (GameEngine.TICK_MS * 1_000_000L / speed);
+        workers = new Worker[workerCount];
+        for (int w = 0; w < workerCount; w++) {
+            workers[w] = new Worker();
+            Thread t = new Thread(workers[w], "session-worker-" + w);
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    // --- In-process API ---
+
+    /** Starts a session in MENU and returns its id. A bot session starts and restarts its own games. */
+    int open(boolean bot) {
+        int id = nextId.getAndIncrement();
+        Session s = new Session(id, ((long) id << 32) ^ System.nanoTime(), bot);
+        sessions.put(id, s);
+        workers[id % workers.length].joining.add(s);
+        return id;
+    }
+
+    /** Queues a command for the session's next step; false if there's no such session or its buffer is full. */
+    boolean input(int id, int cmd) {
+        Session s = sessions.get(id);
+        return s != null && s.input.offer(cmd, System.nanoTime());
+    }
+
+    Session session(int id) { return sessions.get(id); }
+
+    void close(int id) {
+        Session s = sessions.remove(id);
+        if (s != null) s.closed = true;
+    }
+
+    int size() { return sessions.size(); }
+
+    void shutdown() { running = false; }
+
+    // Runs on the session's worker
+    private void step(Session s, long now) {
+        GameEngine e = s.engine;
+        // At most one queued command per step, as in the window
+        int cmd = s.input.poll(now);
+        if (cmd != GameEngine.INPUT_NONE) e.input(cmd);
+        if (s.bot) {
+            if (e.gameState == GameEngine.GameState.MENU || e.gameState == GameEngine.GameState.GAMEOVER) e.input(GameEngine.INPUT_START);
+            else if (e.gameState == GameEngine.GameState.PLAYING && ++s.sinceMove >= BOT_MOVE_EVERY) {
+                e.input(BatchRunner.chooseMove(e));
+                s.sinceMove = 0;
+            }
+        }
+        GameEngine.GameState before = e.gameState;
+        e.step();
+        if (e.gameState == GameEngine.GameState.GAMEOVER && before != GameEngine.GameState.GAMEOVER) {
+            gamesFinished.increment();
+            pointsScored.add(e.score);
+            bestScore.accumulate(e.score);
+        }
+        s.state = e.gameState;
+        s.score = e.score;
+        s.timeRemaining = e.timeRemaining;
+    }
+
+    // --- Local Socket ---
+
+    /** Serves the line protocol on 127.0.0.1:port, one thread per connection. */
+    void listen(int port) throws IOException {
+        ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread t = new Thread(() -> {
+            while (running) {
+                try {
+                    Socket socket = server.accept();
+                    Thread c = new Thread(() -> serve(socket), "session-control");
+                    c.setDaemon(true);
+                    c.start();
+                } catch (IOException e) {
+                    System.out.println("Control socket stopped: " + e.getMessage());
+                    return;
+                }
+            }
+        }, "session-listener");
+        t.setDaemon(true);
+        t.start();
+        System.out.println("Accepting session commands on 127.0.0.1:" + port);
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            for (String line; (line = in.readLine()) != null; ) {
+                String reply = command(line.trim().split("\\s+"));
+                if (reply != null) out.println(reply);
+            }
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+
+    private String command(String[] words) {
+        try {
+            if (words[0].equals("open")) return String.valueOf(open(false));
+            if (words[0].equals("close")) { close(Integer.parseInt(words[1])); return null; }
+            int id = Integer.parseInt(words[0]);
+            Session s = sessions.get(id);
+            if (s == null) return "error no session " + id;
+            switch (words[1]) {
+                case "up": return input(id, GameEngine.INPUT_UP) ? null : "error input dropped";
+                case "down": return input(id, GameEngine.INPUT_DOWN) ? null : "error input dropped";
+                case "left": return input(id, GameEngine.INPUT_LEFT) ? null : "error input dropped";
+                case "right": return input(id, GameEngine.INPUT_RIGHT) ? null : "error input dropped";
+                case "start": return input(id, GameEngine.INPUT_START) ? null : "error input dropped";
+                case "state": return id + " " + s.state + " " + s.score + " " + s.timeRemaining;
+                default: return "error unknown command " + words[1];
+            }
+        } catch (RuntimeException e) {
+            return "error " + e;
+        }
+    }
+
+    // --- Reporting ---
+
+    private long reportSteps;
+
+    String report(double secs) {
+        long total = steps.sum();
+        double stepsPerSec = (total - reportSteps) / secs;
+        reportSteps = total;
+        int n = size();
+        int cores = Runtime.getRuntime().availableProcessors();
+        // 1.0 = every session advanced TICK_MS of game time per TICK_MS of wall time
+        double realTime = n == 0 ? 0 : stepsPerSec / n * GameEngine.TICK_MS / 1000.0;
+        String line = String.format("sessions: %d (%.0f per core on %d cores), %.0f steps/sec, %.2fx real time, "
+                + "step %.1f/%.1f/%.1f us p50/p99/p999, tick late %.2f/%.2f ms p50/p99, %d late rounds, "
+                + "%d games finished, avg score %.1f, best %d, heap %.1f KB/session",
+                n, (double) n / cores, cores, stepsPerSec, realTime,
+                stepNanos.percentileNanos(0.5) / 1e3, stepNanos.percentileNanos(0.99) / 1e3, stepNanos.percentileNanos(0.999) / 1e3,
+                tickLate.percentileNanos(0.5) / 1e6, tickLate.percentileNanos(0.99) / 1e6, lateRounds.sum(),
+                gamesFinished.sum(), gamesFinished.sum() == 0 ? 0 : (double) pointsScored.sum() / gamesFinished.sum(),
+                bestScore.get(), n == 0 ? 0 : heapUsed() / 1024.0 / n);
+        stepNanos.reset();
+        tickLate.reset();
+        return line;
+    }
+
+    private static long heapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = 1000, workerCount = Runtime.getRuntime().availableProcessors();
+        boolean bots = false;
+        double speed = 1;
+        int port = 0, seconds = 30;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sessions": count = Integer.parseInt(args[++i]); break;
+                case "--bots": bots = true; break;
+                case "--workers": workerCount = Integer.parseInt(args[++i]); break;
+                case "--speed": speed = Double.parseDouble(args[++i]); break;
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--seconds": seconds = Integer.parseInt(args[++i]); break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        // Heap cost of a session, measured on the freshly opened ones before any play allocates
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        SessionHost host = new SessionHost(workerCount, speed);
+        memory.gc();
+        long before = heapUsed();
+        for (int i = 0; i < count; i++) host.open(bots);
+        memory.gc();
+        if (count > 0) System.out.printf("opened %d sessions on %d workers, %.1f KB heap each%n",
+                count, workerCount, (heapUsed() - before) / 1024.0 / count);
+        if (port > 0) host.listen(port);
+
+        long start = System.nanoTime(), last = start;
+        while (seconds <= 0 || System.nanoTime() - start < seconds * 1_000_000_000L) {
+            Thread.sleep(REPORT_NANOS / 1_000_000);
+            long now = System.nanoTime();
+            System.out.println(host.report((now - last) / 1e9));
+            last = now;
+        }
+        host.shutdown();
+    }
+}
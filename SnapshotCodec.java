@@ -0,0 +1,207 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Delta-compressed binary snapshots of what a remote view needs: the scalar game state, the
+ * player, and every defender and referee. Each frame only carries what changed since the one
+ * before it, so the host's encoder and a client's decoder each keep the last state they saw
+ * and must see every frame, in order (TCP gives us that). Changed scalars are named by a bit
+ * mask; changed entities by their gap from the previous change, with positions as zigzag
+ * deltas, so an entity that steps one cell costs about four bytes. The first frame is deltas
+ * from an empty state, which makes it a full keyframe.
+ */
+class SnapshotCodec {
+
+    // Scalars, in mask-bit order
+    private static final int S_STATE = 0, S_SCORE = 1, S_TIME = 2, S_TOUCHDOWNS = 3, S_FIRST_DOWN = 4,
+            S_YARDS_TO_GO = 5, S_ATTEMPTS = 6, S_CAMERA = 7, S_TACKLE_X = 8, S_TACKLE_Y = 9, S_TD_SPRITE = 10,
+            S_PLAYER = 11, S_PLAYER_X = 12, S_PLAYER_Y = 13, S_PLAYER_POSE = 14, SCALARS = 15;
+
+    private final int[] scalars = new int[SCALARS];
+    private final int[] current = new int[SCALARS]; // scratch for encode()
+    private long tick;
+    private final Entities defenders = new Entities(), referees = new Entities();
+
+    /** One entity list as (x, y, flags) triplets. */
+    private static final class Entities {
+        int[] data = new int[3 * 64];
+        int count;
+
+        void ensure(int n) {
+            if (data.length < 3 * n) data = Arrays.copyOf(data, Math.max(3 * n, data.length * 2));
+        }
+    }
+
+    // --- Host side ---
+
+    /** Appends the delta from the previous call's state to engine's current one. */
+    void encode(GameEngine engine, ByteBuffer out) {
+        writeVarLong(out, engine.tick - tick);
+        tick = engine.tick;
+
+        capture(engine, current);
+        int mask = 0;
+        for (int i = 0; i < SCALARS; i++) if (current[i] != scalars[i]) mask |= 1 << i;
+        writeVarLong(out, mask);
+        for (int i = 0; i < SCALARS; i++) {
+            if ((mask & 1 << i) == 0) continue;
+            writeVarLong(out, zigzag(current[i]));
+            scalars[i] = current[i];
+        }
+
+        encodeEntities(defenders, engine.defenders, out);
+        encodeEntities(referees, engine.referees, out);
+    }
+
+    private final int[] xyf = new int[3];
+
+    private void read(EntityStore e, int i) {
+        xyf[0] = e.x[i]; xyf[1] = e.y[i]; xyf[2] = e.flags[i];
+    }
+
+    private void encodeEntities(Entities prev, EntityStore e, ByteBuffer out) {
+        int count = e.count;
+        writeVarLong(out, count);
+        // First pass counts the changes so the decoder knows how many follow
+        int changes = 0;
+        for (int i = 0; i < count; i++) {
+            read(e, i);
+            if (i >= prev.count || !same(prev.data, i, xyf)) changes++;
+        }
+        writeVarLong(out, changes);
+
+        prev.ensure(count);
+        int last = -1;
+        for (int i = 0; i < count; i++) {
+            read(e, i);
+            boolean existed = i < prev.count;
+            if (existed && same(prev.data, i, xyf)) continue;
+            writeVarLong(out, i - last - 1);
+            last = i;
+            int baseX = existed ? prev.data[3 * i] : 0, baseY = existed ? prev.data[3 * i + 1] : 0;
+            writeVarLong(out, zigzag(xyf[0] - baseX));
+            writeVarLong(out, zigzag(xyf[1] - baseY));
+            out.put((byte) xyf[2]);
+            prev.data[3 * i] = xyf[0]; prev.data[3 * i + 1] = xyf[1]; prev.data[3 * i + 2] = xyf[2];
+        }
+        prev.count = count;
+    }
+
+    private static boolean same(int[] data, int i, int[] xyf) {
+        return data[3 * i] == xyf[0] && data[3 * i + 1] == xyf[1] && data[3 * i + 2] == xyf[2];
+    }
+
+    private static void capture(GameEngine e, int[] s) {
+        s[S_STATE] = e.gameState.ordinal();
+        s[S_SCORE] = e.score;
+        s[S_TIME] = e.timeRemaining;
+        s[S_TOUCHDOWNS] = e.touchdowns;
+        s[S_FIRST_DOWN] = e.firstDownMarkerX;
+        s[S_YARDS_TO_GO] = e.yardsToGo;
+        s[S_ATTEMPTS] = e.attemptsRemaining;
+        s[S_CAMERA] = e.cameraX;
+        s[S_TACKLE_X] = e.tackleX;
+        s[S_TACKLE_Y] = e.tackleY;
+        s[S_TD_SPRITE] = e.showTDSprite ? 1 : 0;
+        GameEngine.Player p = e.player;
+        s[S_PLAYER] = p == null ? 0 : 1;
+        s[S_PLAYER_X] = p == null ? 0 : p.x;
+        s[S_PLAYER_Y] = p == null ? 0 : p.y;
+        s[S_PLAYER_POSE] = p == null ? 0 : p.state.ordinal() << 2 | (p.facingLeft ? 1 : 0) | (p.stepLeftFoot ? 2 : 0);
+    }
+
+    // --- Client side ---
+
+    /** Reads one frame and makes mirror match the host. Throws if the frame is cut short or malformed. */
+    void decode(ByteBuffer in, GameEngine mirror) {
+        tick += readVarLong(in);
+        int mask = (int) readVarLong(in);
+        for (int i = 0; i < SCALARS; i++) {
+            if ((mask & 1 << i) != 0) scalars[i] = unzigzag(readVarLong(in));
+        }
+        decodeEntities(defenders, in);
+        decodeEntities(referees, in);
+        apply(mirror);
+    }
+
+    private static void decodeEntities(Entities prev, ByteBuffer in) {
+        int count = (int) readVarLong(in);
+        int changes = (int) readVarLong(in);
+        prev.ensure(count);
+        int i = -1;
+        for (int c = 0; c < changes; c++) {
+            i += (int) readVarLong(in) + 1;
+            if (i >= count) throw new IllegalStateException("Malformed snapshot");
+            boolean existed = i < prev.count;
+            int baseX = existed ? prev.data[3 * i] : 0, baseY = existed ? prev.data[3 * i + 1] : 0;
+            prev.data[3 * i] = baseX + unzigzag(readVarLong(in));
+            prev.data[3 * i + 1] = baseY + unzigzag(readVarLong(in));
+            prev.data[3 * i + 2] = in.get();
+        }
+        prev.count = count;
+    }
+
+    // The mirror is overwritten from the decoded state every frame, so nothing done to it locally can drift
+    private void apply(GameEngine m) {
+        m.tick = tick;
+        m.gameState = GameEngine.GameState.values()[scalars[S_STATE]];
+        m.score = scalars[S_SCORE];
+        m.timeRemaining = scalars[S_TIME];
+        m.touchdowns = scalars[S_TOUCHDOWNS];
+        m.firstDownMarkerX = scalars[S_FIRST_DOWN];
+        m.yardsToGo = scalars[S_YARDS_TO_GO];
+        m.attemptsRemaining = scalars[S_ATTEMPTS];
+        m.cameraX = scalars[S_CAMERA];
+        m.tackleX = scalars[S_TACKLE_X];
+        m.tackleY = scalars[S_TACKLE_Y];
+        m.showTDSprite = scalars[S_TD_SPRITE] != 0;
+
+        store(defenders, m.defenders);
+        store(referees, m.referees);
+
+        if (scalars[S_PLAYER] == 0) {
+            m.player = null;
+            return;
+        }
+        if (m.player == null) m.player = m.new Player(0, 0);
+        m.player.x = scalars[S_PLAYER_X];
+        m.player.y = scalars[S_PLAYER_Y];
+        int pose = scalars[S_PLAYER_POSE];
+        m.player.state = GameEngine.Player.State.values()[pose >> 2];
+        m.player.facingLeft = (pose & 1) != 0;
+        m.player.stepLeftFoot = (pose & 2) != 0;
+        m.rebuildOccupancy();
+    }
+
+    private static void store(Entities from, EntityStore to) {
+        to.resize(from.count);
+        for (int i = 0; i < from.count; i++) {
+            to.x[i] = from.data[3 * i];
+            to.y[i] = from.data[3 * i + 1];
+            to.flags[i] = from.data[3 * i + 2];
+        }
+    }
+
+    // --- Varints ---
+
+    static void writeVarLong(ByteBuffer out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.put((byte) v);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    private static long zigzag(int v) { return ((v << 1) ^ (v >> 31)) & 0xFFFFFFFFL; }
+    private static int unzigzag(long v) { return (int) (v >>> 1) ^ -(int) (v & 1); }
+}
@@ -0,0 +1,57 @@
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * Every sprite pre-scaled to one tile size in both facings, converted to the screen's native
+ * pixel layout so Java2D can keep them in video memory. Drawing one is a plain unscaled blit
+ * with no per-frame flipping or scaling.
+ */
+class SpriteCache {
+
+    static final int PLAYER_STAND = 0, PLAYER_RUN = 1, PLAYER_UP = 2, PLAYER_DOWN = 3, PLAYER_TACKLED = 4;
+    static final int DEFENDER = 5, DEFENDER_KNOCKED = 6, DEFENDER_TACKLING = 7, REFEREE = 8;
+    static final int COUNT = 9;
+
+    final int size;
+    private final GraphicsConfiguration gc;
+    private final BufferedImage[] normal = new BufferedImage[COUNT];
+    private final BufferedImage[] mirrored = new BufferedImage[COUNT];
+
+    SpriteCache(GraphicsConfiguration gc, int size) {
+        this.gc = gc;
+        this.size = size;
+    }
+
+    /** The default screen's configuration, or null when running headless. */
+    static GraphicsConfiguration defaultConfiguration() {
+        if (GraphicsEnvironment.isHeadless()) return null;
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+    }
+
+    void put(int id, BufferedImage src) {
+        normal[id] = scale(src, size, size, false);
+        mirrored[id] = scale(src, size, size, true);
+    }
+
+    BufferedImage get(int id, boolean mirror) {
+        return mirror ? mirrored[id] : normal[id];
+    }
+
+    /** Renders src once at w x h (optionally mirrored) into a display-compatible image. */
+    BufferedImage scale(BufferedImage src, int w, int h, boolean mirror) {
+        if (src == null) return null;
+        BufferedImage out = gc != null
+                ? gc.createCompatibleImage(w, h, Transparency.TRANSLUCENT)
+                : new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = out.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        if (mirror) g.drawImage(src, w, 0, -w, h, null);
+        else g.drawImage(src, 0, 0, w, h, null);
+        g.dispose();
+        return out;
+    }
+}
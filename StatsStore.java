@@ -0,0 +1,317 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Every play and every finished game, appended as fixed 32-byte records to a memory-mapped log.
+ * The header in front of the records keeps the lifetime totals and the top scores up to date with
+ * each game, so opening the store and reading the leaderboard touches a fixed few hundred bytes
+ * however long the log has grown. Play records are only kept for the most recent games: once the
+ * log doubles since it was last compacted, a background thread rewrites it without the older ones.
+ * Game records are kept forever.
+ */
+class StatsStore implements AutoCloseable {
+
+    static final int TOP_N = 10;
+    static final int KEEP_PLAY_GAMES = 1000;   // games whose play-by-play survives compaction
+    private static final int MIN_COMPACT_RECORDS = 64 * 1024;
+
+    private static final int MAGIC = 0x54424653; // "TBFS"
+    private static final int VERSION = 1;
+    private static final byte KIND_PLAY = 1, KIND_GAME = 2;
+
+    // --- Header layout ---
+    private static final int H_MAGIC = 0, H_VERSION = 4, H_RECORDS = 8, H_NEXT_GAME = 16;
+    private static final int H_GAMES = 24, H_SCORE = 32, H_YARDS = 40, H_TOUCHDOWNS = 48, H_KNOCKDOWNS = 56, H_TACKLES = 64;
+    private static final int H_TOP_COUNT = 72;
+    private static final int H_TOP = 80;           // TOP_N entries of { long gameId, int score, int touchdowns }
+    private static final int TOP_BYTES = 16;
+    private static final int HEADER_BYTES = 256;
+
+    // --- Record layout ---
+    // kind, touchdowns, tackles, unused, then knock-downs, yards, ticks, score, check, and the game id.
+    // A game record holds that game's totals in the same fields.
+    static final int RECORD_BYTES = 32;
+    private static final int R_KIND = 0, R_TOUCHDOWNS = 1, R_TACKLES = 2, R_KNOCKDOWNS = 4, R_YARDS = 8;
+    private static final int R_TICKS = 12, R_SCORE = 16, R_CHECK = 20, R_GAME = 24;
+
+    private final File file;
+    private RandomAccessFile raf;
+    private MappedByteBuffer buf;
+    private long records, compactAt;
+
+    // The game in progress: its id is taken when its first play is logged
+    private long gameId = -1;
+    private int gameYards, gameKnockDowns, gameTackles, gameTouchdowns, gameTicks;
+
+    // Games finished since this store was opened
+    private int sessionGames, sessionBest;
+
+    // Runs compactions and the flush after each game, off the caller's thread
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "stats-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+    private boolean compacting = false;
+
+    /** Opens the log at file, creating it if needed. */
+    StatsStore(File file) throws IOException {
+        this.file = file;
+        boolean fresh = !file.exists() || file.length() == 0;
+        if (!fresh && file.length() < HEADER_BYTES) {
+            throw new IOException(file + " is too short to be a stats log (" + file.length() + " bytes)");
+        }
+        map(fresh ? HEADER_BYTES + 1024L * RECORD_BYTES : file.length());
+        if (fresh) {
+            buf.putInt(H_MAGIC, MAGIC);
+            buf.putInt(H_VERSION, VERSION);
+        } else if (buf.getInt(H_MAGIC) != MAGIC) {
+            close();
+            throw new IOException(file + " is not a stats log");
+        } else if (buf.getInt(H_VERSION) != VERSION) {
+            close();
+            throw new IOException("Unsupported stats log version " + buf.getInt(H_VERSION));
+        }
+        records = buf.getLong(H_RECORDS);
+        // A record torn by a crash can only be the last one; nothing before it needs checking
+        if (records > 0 && !valid(records - 1)) records--;
+        compactAt = Math.max(MIN_COMPACT_RECORDS, 2 * records);
+    }
+
+    private void map(long size) throws IOException {
+        if (raf == null) raf = new RandomAccessFile(file, "rw");
+        if (raf.length() < size) raf.setLength(size);
+        buf = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+    }
+
+    // --- Writing ---
+
+    /** Logs one finished play. The game it belongs to runs until gameOver(). */
+    synchronized void play(int yards, int knockDowns, boolean tackled, boolean touchdown, int ticks, int score) {
+        if (gameId < 0) {
+            gameId = buf.getLong(H_NEXT_GAME);
+            buf.putLong(H_NEXT_GAME, gameId + 1);
+        }
+        gameYards += yards; gameKnockDowns += knockDowns; gameTicks += ticks;
+        if (tackled) gameTackles++;
+        if (touchdown) gameTouchdowns++;
+        append(KIND_PLAY, yards, knockDowns, tackled ? 1 : 0, touchdown ? 1 : 0, ticks, score);
+    }
+
+    /** Logs the game in progress as finished with the given score and folds it into the totals and leaderboard. */
+    synchronized void gameOver(int score) {
+        if (gameId < 0) {
+            gameId = buf.getLong(H_NEXT_GAME);
+            buf.putLong(H_NEXT_GAME, gameId + 1);
+        }
+        append(KIND_GAME, gameYards, gameKnockDowns, gameTackles, gameTouchdowns, gameTicks, score);
+        buf.putLong(H_GAMES, buf.getLong(H_GAMES) + 1);
+        buf.putLong(H_SCORE, buf.getLong(H_SCORE) + score);
+        buf.putLong(H_YARDS, buf.getLong(H_YARDS) + gameYards);
+        buf.putLong(H_TOUCHDOWNS, buf.getLong(H_TOUCHDOWNS) + gameTouchdowns);
+        buf.putLong(H_KNOCKDOWNS, buf.getLong(H_KNOCKDOWNS) + gameKnockDowns);
+        buf.putLong(H_TACKLES, buf.getLong(H_TACKLES) + gameTackles);
+        rank(gameId, score, gameTouchdowns);
+        sessionGames++;
+        sessionBest = Math.max(sessionBest, score);
+        gameId = -1;
+        gameYards = gameKnockDowns = gameTackles = gameTouchdowns = gameTicks = 0;
+        // Flushing to disk can stall for as long as the device takes; the caller is the game loop
+        MappedByteBuffer flushed = buf;
+        try {
+            compactor.execute(flushed::force);
+        } catch (RejectedExecutionException e) {
+            flushed.force(); // closing: close() flushes again anyway
+        }
+    }
+
+    private void append(byte kind, int yards, int knockDowns, int tackles, int touchdowns, int ticks, int score) {
+        long pos = HEADER_BYTES + records * RECORD_BYTES;
+        if (pos + RECORD_BYTES > buf.capacity()) {
+            try {
+                map(2 * (long) buf.capacity());
+            } catch (IOException e) {
+                System.out.println("Error growing stats log: " + e.getMessage());
+                return;
+            }
+        }
+        int p = (int) pos;
+        buf.put(p + R_KIND, kind);
+        buf.put(p + R_TOUCHDOWNS, (byte) Math.min(touchdowns, 255));
+        buf.put(p + R_TACKLES, (byte) Math.min(tackles, 255));
+        buf.put(p + 3, (byte) 0);
+        buf.putInt(p + R_KNOCKDOWNS, knockDowns);
+        buf.putInt(p + R_YARDS, yards);
+        buf.putInt(p + R_TICKS, ticks);
+        buf.putInt(p + R_SCORE, score);
+        buf.putLong(p + R_GAME, gameId);
+        buf.putInt(p + R_CHECK, check(buf, p));
+        // The count moves last, so a record is either counted whole or not at all
+        buf.putLong(H_RECORDS, ++records);
+        if (records >= compactAt) compactInBackground();
+    }
+
+    // Keeps the top TOP_N in descending score order; an equal score ranks below the earlier game
+    private void rank(long id, int score, int touchdowns) {
+        int n = buf.getInt(H_TOP_COUNT);
+        int at = n;
+        while (at > 0 && buf.getInt(H_TOP + (at - 1) * TOP_BYTES + 8) < score) at--;
+        if (at >= TOP_N) return;
+        int last = Math.min(n, TOP_N - 1);
+        for (int i = last; i > at; i--) {
+            int src = H_TOP + (i - 1) * TOP_BYTES, dst = H_TOP + i * TOP_BYTES;
+            buf.putLong(dst, buf.getLong(src));
+            buf.putLong(dst + 8, buf.getLong(src + 8));
+        }
+        int e = H_TOP + at * TOP_BYTES;
+        buf.putLong(e, id);
+        buf.putInt(e + 8, score);
+        buf.putInt(e + 12, touchdowns);
+        buf.putInt(H_TOP_COUNT, Math.min(n + 1, TOP_N));
+    }
+
+    private static int check(MappedByteBuffer b, int p) {
+        long h = b.getLong(p) * 0x9E3779B97F4A7C15L ^ b.getLong(p + 8) * 0xC2B2AE3D27D4EB4FL
+                ^ b.getInt(p + R_SCORE) * 0x165667B19E3779F9L ^ b.getLong(p + R_GAME);
+        h ^= h >>> 29;
+        return (int) (h ^ (h >>> 32)) | 1; // never 0, so a zeroed slot never passes
+    }
+
+    private boolean valid(long record) {
+        long pos = HEADER_BYTES + record * RECORD_BYTES;
+        if (pos + RECORD_BYTES > buf.capacity()) return false;
+        return buf.getInt((int) pos + R_CHECK) == check(buf, (int) pos);
+    }
+
+    // --- Reading ---
+    // All constant-time: straight from the header or the in-memory running totals
+
+    synchronized int topCount() { return buf.getInt(H_TOP_COUNT); }
+    synchronized int topScore(int i) { return buf.getInt(H_TOP + i * TOP_BYTES + 8); }
+    synchronized int topTouchdowns(int i) { return buf.getInt(H_TOP + i * TOP_BYTES + 12); }
+    synchronized long topGame(int i) { return buf.getLong(H_TOP + i * TOP_BYTES); }
+
+    synchronized long gamesPlayed() { return buf.getLong(H_GAMES); }
+    synchronized long totalScore() { return buf.getLong(H_SCORE); }
+    synchronized long totalYards() { return buf.getLong(H_YARDS); }
+    synchronized long totalTouchdowns() { return buf.getLong(H_TOUCHDOWNS); }
+    synchronized long totalKnockDowns() { return buf.getLong(H_KNOCKDOWNS); }
+    synchronized long totalTackles() { return buf.getLong(H_TACKLES); }
+    synchronized long records() { return records; }
+
+    synchronized int gameYards() { return gameYards; }
+    synchronized int gameKnockDowns() { return gameKnockDowns; }
+    synchronized int gameTouchdowns() { return gameTouchdowns; }
+    synchronized int sessionGames() { return sessionGames; }
+    synchronized int sessionBest() { return sessionBest; }
+
+    /** One line per leaderboard entry, best first. */
+    synchronized String leaderboard() {
+        StringBuilder sb = new StringBuilder(String.format("stats: %d games, %d touchdowns, %d yards lifetime%n",
+                gamesPlayed(), totalTouchdowns(), totalYards()));
+        for (int i = 0; i < topCount(); i++) {
+            sb.append(String.format("  %2d. %5d pts  %3d TD  (game %d)%n", i + 1, topScore(i), topTouchdowns(i), topGame(i)));
+        }
+        return sb.toString();
+    }
+
+    // --- Compaction ---
+
+    private void compactInBackground() {
+        if (compacting) return;
+        compacting = true;
+        long upTo = records;
+        long keepFrom = buf.getLong(H_NEXT_GAME) - KEEP_PLAY_GAMES;
+        MappedByteBuffer snapshot = buf; // records before upTo never change, whatever happens to buf
+        compactor.execute(() -> {
+            try {
+                compact(snapshot, upTo, keepFrom);
+            } catch (IOException e) {
+                System.out.println("Error compacting stats log: " + e.getMessage());
+                synchronized (this) { compactAt = records + MIN_COMPACT_RECORDS; }
+            } finally {
+                synchronized (this) { compacting = false; }
+            }
+        });
+    }
+
+    // Copies the kept records before upTo to a new file and syncs it, all without the lock. Only
+    // the swap holds it: the rename, and copying over whatever was appended in the meantime.
+    private void compact(MappedByteBuffer from, long upTo, long keepFrom) throws IOException {
+        File tmp = new File(file.getPath() + ".compact");
+        long kept = 0, size;
+        try (RandomAccessFile out = new RandomAccessFile(tmp, "rw")) {
+            out.setLength(0);
+            FileChannel ch = out.getChannel();
+            MappedByteBuffer to = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + Math.max(1, upTo) * RECORD_BYTES);
+            for (long r = 0; r < upTo; r++) {
+                int p = (int) (HEADER_BYTES + r * RECORD_BYTES);
+                if (from.get(p + R_KIND) == KIND_PLAY && from.getLong(p + R_GAME) < keepFrom) continue;
+                copyRecord(from, p, to, (int) (HEADER_BYTES + kept++ * RECORD_BYTES));
+            }
+            // Room to grow into, and a valid header written with the records, so a crash after the
+            // rename still opens
+            synchronized (this) {
+                size = HEADER_BYTES + Math.max(2 * (kept + records - upTo), 1024) * RECORD_BYTES;
+                for (int i = 0; i < HEADER_BYTES; i += 8) to.putLong(i, buf.getLong(i));
+            }
+            out.setLength(size);
+            to.putLong(H_RECORDS, kept);
+            to.force();
+            ch.force(true);
+        }
+
+        MappedByteBuffer swapped;
+        synchronized (this) {
+            MappedByteBuffer old = buf;
+            long total = kept + records - upTo;
+            raf.close();
+            raf = null;
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                map(old.capacity()); // carry on with the old log
+                throw e;
+            }
+            map(Math.max(size, HEADER_BYTES + 2 * total * RECORD_BYTES));
+            for (long r = upTo; r < records; r++) {
+                copyRecord(old, (int) (HEADER_BYTES + r * RECORD_BYTES), buf, (int) (HEADER_BYTES + kept++ * RECORD_BYTES));
+            }
+            for (int i = 0; i < HEADER_BYTES; i += 8) buf.putLong(i, old.getLong(i));
+            buf.putLong(H_RECORDS, kept);
+            records = kept;
+            compactAt = Math.max(MIN_COMPACT_RECORDS, 2 * records);
+            swapped = buf;
+        }
+        swapped.force();
+    }
+
+    private static void copyRecord(MappedByteBuffer from, int src, MappedByteBuffer to, int dst) {
+        for (int i = 0; i < RECORD_BYTES; i += 8) to.putLong(dst + i, from.getLong(src + i));
+    }
+
+    /** Waits for a running compaction, then flushes and closes the log. */
+    @Override
+    public void close() throws IOException {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, java.util.concurrent.TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (raf == null) return;
+            buf.force();
+            raf.close();
+            raf = null;
+        }
+    }
+}
@@ -1,5 +1,4 @@
 import javax.imageio.ImageIO;
-import javax.sound.sampled.*;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
@@ -8,126 +7,215 @@ import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.text.DecimalFormat;
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class TheBestFootballGame extends JPanel implements KeyListener, MouseListener {
 
     // --- Grid & Dimensions ---
-    private static final int TILE_SIZE = 48; 
-    private static final int VIEW_W = 14;    
-    private static final int VIEW_H = 7;     // Playable rows
+    // The standard tile; the window opens at this size and the art is laid out for it
+    static final int TILE_SIZE = 48; 
+    private static final int VIEW_W = GameEngine.VIEW_W;
+    private static final int VIEW_H = GameEngine.VIEW_H;
+    private static final int FIELD_START_X = GameEngine.FIELD_START_X;
     
-    // 2 EndzoneL + 40 Field + 2 EndzoneR = 44 total grid units
-    private static final int GRID_W = 44; 
-    private static final int FIELD_START_X = 2; 
-    private static final int FIELD_END_X = GRID_W - 2; 
-    
-    // Margins for Sidelines (Outside the grid)
+    // Margins for Sidelines (Outside the grid), at the standard tile
     private static final int SIDELINE_H = 3; 
 
-    private static final int SCOREBOARD_W = (int)(2.5 * TILE_SIZE);
-    private static final int WINDOW_W = (VIEW_W * TILE_SIZE) + SCOREBOARD_W;
-    private static final int WINDOW_H = (VIEW_H * TILE_SIZE) + (SIDELINE_H * 2);
-
-    // --- Game Constants ---
-    private static final int TURN_DELAY = 500; 
-    private static final int START_ATTEMPTS = 4;
-    private static final int GAME_DURATION = 60; 
-    private static final int FIRST_DOWN_DISTANCE = 10;
+    private static final int MIN_TILE = 8;
+    private static final int SCALES_CACHED = 4;
 
     private static final Color FIELD_COLOR = new Color(3, 214, 73); 
     private static final Color SIDELINE_COLOR = new Color(255, 255, 255); 
-
-    // --- State Management ---
-    private enum GameState { MENU, READY, PLAYING, TOUCHDOWN, TACKLED, GAMEOVER }
-    private GameState gameState = GameState.MENU;
-    
-    private boolean keyIsPressed = false; 
-
-    // --- Stats & First Down ---
-    private int score = 0;
-    private int attempts = START_ATTEMPTS; // This counter is now unused for Game Over logic
-    private int timeRemaining = GAME_DURATION;
-    private int touchdowns = 0;
-    private DecimalFormat df = new DecimalFormat("#.#");
-    
-    // First Down Variables
-    private int firstDownMarkerX; 
-    private int yardsToGo;        
-    private int attemptsRemaining; 
-
-    // --- Camera ---
-    private int cameraX = 0; 
+    private static final Color YARD_LINE_COLOR = new Color(255, 255, 255, 100);
+    private static final Color METRICS_BACKGROUND = new Color(0, 0, 0, 170);
+    private static final Font METRICS_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+
+    // --- Model ---
+    private final GameEngine engine;
+
+    // --- Input ---
+    // Key handlers only queue commands; the logic step applies at most one per engine tick
+    static final int DEFAULT_BUFFERED_MOVES = 2;
+    static final int KEY_REPEAT_DELAY_MS = 200, DEFAULT_KEY_REPEAT_MS = 125;
+    final InputQueue input;
+    private long lastInputTick = -1;
+    private final AtomicLong pixelStamp = new AtomicLong(); // key-down time of the oldest input not yet drawn
+
+    // --- Metrics ---
+    // Always recording; F3 shows them over the field
+    final GameMetrics metrics = new GameMetrics();
+    private volatile boolean showMetrics = false;
 
     // --- Timers ---
-    private Timer defenderTimer;
-    private Timer gameClock;
-    private Timer tdBlinkTimer;
-    
-    // Animation State
-    private boolean showTDSprite = false;
-    private int tdBlinkCount = 0;
-    
-    // Tackle Logic
-    private Point tackleSource; 
-
-    // --- Entities ---
-    private Player player;
-    private ArrayList<Defender> defenders;
-    private ArrayList<Referee> referees;
+    // Steps the engine in fixed TICK_MS slices, as many as the clock says are due: it catches up
+    // on however much wall time has passed, scaled by --speed, and stops while P has it paused.
+    private Timer logicTimer;
+    final GameClock clock = new GameClock();
 
     // --- Assets ---
-    private BufferedImage imgPlayerRunLeft, imgPlayerStandLeft;
-    private BufferedImage imgPlayerUpRightFoot, imgPlayerDownRightFoot;
-    private BufferedImage imgDefenderRight, imgDefenderKnocked, imgDefenderTackling;
-    private BufferedImage imgPlayerTackled, imgTackleFlash, imgMidfieldLogo;
-    private BufferedImage imgRefRight;
+    // As loaded, at their own resolution; frames draw from a Scaled set made from these
+    private final BufferedImage[] spriteSources = new BufferedImage[SpriteCache.COUNT];
+    private BufferedImage imgTackleFlash, imgMidfieldLogo;
     private BufferedImage imgEndzoneRight, imgEndzoneLeft; 
     private BufferedImage imgTouchdown, imgScoreboard;
-    private BufferedImage imgGrassTexture; 
     private BufferedImage imgFirstDownMarker; 
+    private final int stripCols;
+    // Seeded from the session unless told otherwise, so a replay shows the same field
+    private GrassTexture grass;
+
+    // --- Scaling ---
+    // The tile size follows the drawing surface in device pixels, so a resized window or a HiDPI
+    // screen gets art pre-rendered at its own size and a frame is still only unscaled blits. The
+    // few most recent sizes stay cached, most recent first, so a drag back and forth reuses them.
+    private final ArrayList<Scaled> scales = new ArrayList<>();
+    // The last surface drawn on and its device scale, so a frame needn't copy the transform to learn it
+    private GraphicsConfiguration surfaceConfig;
+    private double surfaceScaleX = 1, surfaceScaleY = 1;
+
+    /** Everything a frame draws, pre-rendered for one tile size. */
+    private final class Scaled {
+        final int tile, sidelineH, fieldW, panelW, width, height;
+        final SpriteCache sprites;
+        final HudRenderer hud;
+        final BufferedImage tackleFlash, touchdown, firstDownMarker;
+
+        // The static field (grass, yard lines, endzones, logo, sidelines) for columns stripX onward,
+        // stripCols wide: the whole standard field, or a window around the camera on a long one.
+        // Frames copy the camera's view out of it; null until first drawn.
+        BufferedImage fieldStrip;
+        int stripX;
+
+        Scaled(int tile) {
+            this.tile = tile;
+            sidelineH = sidelineFor(tile);
+            fieldW = VIEW_W * tile;
+            panelW = (int) (2.5 * tile);
+            width = fieldW + panelW;
+            height = VIEW_H * tile + 2 * sidelineH;
+            GraphicsConfiguration gc = SpriteCache.defaultConfiguration();
+            sprites = new SpriteCache(gc, tile);
+            for (int i = 0; i < SpriteCache.COUNT; i++) if (spriteSources[i] != null) sprites.put(i, spriteSources[i]);
+            tackleFlash = sprites.scale(imgTackleFlash, tile * 2, tile, false);
+            touchdown = imgTouchdown == null ? null : sprites.scale(imgTouchdown,
+                    imgTouchdown.getWidth() * tile / (2 * TILE_SIZE), imgTouchdown.getHeight() * tile / (2 * TILE_SIZE), false);
+            firstDownMarker = sprites.scale(imgFirstDownMarker, Math.max(1, tile / 3), Math.max(1, tile / 4), false);
+            hud = new HudRenderer(gc, (double) tile / TILE_SIZE, width, height, fieldW, panelW,
+                    sprites.scale(imgScoreboard, panelW, height, false));
+        }
+    }
     
     // --- Sounds ---
-    private Clip clipCheer, clipSeal, clipWhistle, clipStep, clipThud;
+    // Indexed by GameEngine.Sound ordinal
+    private static final String[] SOUND_FILES = { "cheer.wav", "seal.wav", "whistle.wav", "step.wav", "thud.wav" };
+    private volatile AudioMixer mixer;
+
+    // --- Startup ---
+    // Assets decode on the loader pool while the menu is already showing. Nothing outside the menu
+    // is drawn until finishLoading() has run; a click that arrives earlier is held until then.
+    private final AssetLoader loader = AssetLoader.forThisMachine();
+    private boolean assetsReady = false;
+    private boolean startRequested = false;
+    private final boolean interactive; // false for offscreen(): nothing but drawing
+    private static final AtomicBoolean FIRST_FRAME_LOGGED = new AtomicBoolean(); // once per process, not per view
 
     public TheBestFootballGame() {
-        setPreferredSize(new Dimension(WINDOW_W, WINDOW_H));
+        this(new GameEngine());
+        startLogicTimer();
+    }
+
+    /** A view over the given engine. Nothing steps the engine until the logic timer is started. */
+    TheBestFootballGame(GameEngine engine) {
+        this(engine, new InputQueue(DEFAULT_BUFFERED_MOVES, KEY_REPEAT_DELAY_MS, DEFAULT_KEY_REPEAT_MS));
+    }
+
+    TheBestFootballGame(GameEngine engine, InputQueue input) {
+        this(engine, input, true);
+    }
+
+    /**
+     * A view that only draws, for exporting frames: no sound, input or timers, and no startup
+     * logging. Returns once the art has loaded.
+     */
+    static TheBestFootballGame offscreen(GameEngine engine) {
+        TheBestFootballGame view = new TheBestFootballGame(engine,
+                new InputQueue(DEFAULT_BUFFERED_MOVES, KEY_REPEAT_DELAY_MS, DEFAULT_KEY_REPEAT_MS), false);
+        view.finishLoading();
+        return view;
+    }
+
+    private TheBestFootballGame(GameEngine engine, InputQueue input, boolean interactive) {
+        if (engine.rows != VIEW_H) throw new IllegalArgumentException("The window shows fields of " + VIEW_H + " rows, not " + engine.rows);
+        this.engine = engine;
+        this.input = input;
+        this.interactive = interactive;
+        stripCols = Math.min(engine.gridW, 4 * VIEW_W);
+        useGrass(engine.seed, null);
+
+        setPreferredSize(sizeForTile(TILE_SIZE));
         setBackground(FIELD_COLOR); 
+        loadAssets();
+        if (!interactive) return;
+
         setFocusable(true);
         addKeyListener(this);
         addMouseListener(this);
-
-        loadAssets();
-        generateGrassTexture();
         loadSounds();
-
-        defenderTimer = new Timer(TURN_DELAY, e -> tickDefenders());
-        
-        gameClock = new Timer(1000, e -> {
-            if (gameState == GameState.PLAYING && timeRemaining > 0) {
-                timeRemaining--;
-                if (timeRemaining <= 0) gameOver("TIME'S UP!");
+        loader.whenDone().thenRun(() -> SwingUtilities.invokeLater(this::finishLoading));
+
+        engine.setListener(this::playSound);
+        engine.setMetrics(metrics);
+
+        logicTimer = new Timer(GameEngine.TICK_MS, e -> {
+            long now = System.nanoTime();
+            synchronized (engine) {
+                long late = clock.lateNanos(now);
+                if (late >= 0) metrics.timerLate.record(late);
+                if (late >= GameEngine.TICK_MS * 1_000_000L) metrics.lateTimerFire();
+                advance(now);
+                if (engine.consumeChanged()) requestRepaint();
             }
-            repaint();
         });
+    }
 
-        tdBlinkTimer = new Timer(625, e -> {
-            tdBlinkCount++;
-            showTDSprite = (tdBlinkCount % 2 != 0); 
+    /** Runs the steps the clock says are due, feeding in queued input. Caller holds the engine's monitor. */
+    void advance(long now) {
+        int steps = clock.due(now);
+        if (clock.paused()) return;
+        applyQueuedInput(now);
+        for (; steps > 0; steps--) {
+            engine.step();
+            applyQueuedInput(now);
+        }
+    }
 
-            if (tdBlinkCount >= 8) { 
-                tdBlinkTimer.stop();
-                resetPlaySequence();
-            }
-            repaint();
-        });
+    private void applyQueuedInput(long now) {
+        if (engine.tick == lastInputTick) return;
+        int cmd = input.poll(now);
+        if (cmd == GameEngine.INPUT_NONE) return;
+        // SPACE only restarts from game over; moves that come due outside a play are spent
+        boolean applies = cmd == GameEngine.INPUT_START ? engine.gameState == GameEngine.GameState.GAMEOVER
+                : engine.gameState == GameEngine.GameState.PLAYING;
+        if (!applies) return;
+        lastInputTick = engine.tick;
+        engine.input(cmd);
+        long stamp = input.lastStamp();
+        metrics.keyToState.record(System.nanoTime() - stamp);
+        pixelStamp.compareAndSet(0, stamp);
+    }
 
-        initGameSession(); 
+    void requestRepaint() {
+        metrics.repaintRequested();
+        repaint();
     }
-    
+
+    void startLogicTimer() {
+        clock.start(System.nanoTime());
+        logicTimer.start();
+    }
+
     // --- Asset Loading & Generation ---
     
     private BufferedImage flipImageHorizontally(BufferedImage src) {
@@ -138,40 +226,6 @@ public class TheBestFootballGame extends JPanel implements KeyListener, MouseLis
         return op.filter(src, null);
     }
 
-    private void generateGrassTexture() {
-        BufferedImage tileTexture = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g = tileTexture.createGraphics();
-        g.setColor(FIELD_COLOR);
-        g.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
-        
-        int darkR = Math.max(0, FIELD_COLOR.getRed() - 15);
-        int darkG = Math.max(0, FIELD_COLOR.getGreen() - 15);
-        int darkB = Math.max(0, FIELD_COLOR.getBlue() - 15);
-        
-        Color darkerGreen = new Color(darkR, darkG, darkB, 255); 
-        Random r = new Random();
-        
-        for(int x = 0; x < TILE_SIZE; x+=2) { 
-            for(int y = 0; y < TILE_SIZE; y+=2) {
-                if(r.nextDouble() < 0.2) { 
-                    g.setColor(darkerGreen);
-                    int smudgeSize = r.nextInt(3) + 1; 
-                    g.fillRect(x, y, smudgeSize, smudgeSize);
-                }
-            }
-        }
-        g.dispose();
-
-        imgGrassTexture = new BufferedImage(VIEW_W * TILE_SIZE, WINDOW_H, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D fullG = imgGrassTexture.createGraphics();
-        for (int x = 0; x < VIEW_W; x++) {
-            for (int y = 0; y < VIEW_H; y++) {
-                fullG.drawImage(tileTexture, x * TILE_SIZE, y * TILE_SIZE, null);
-            }
-        }
-        fullG.dispose();
-    }
-    
     private BufferedImage loadImage(String name) {
         try { return ImageIO.read(new File(name)); } 
         catch (IOException e) { return createPlaceholder(name); }
@@ -185,621 +239,494 @@ public class TheBestFootballGame extends JPanel implements KeyListener, MouseLis
     }
 
     private void loadAssets() {
-        try {
-            imgPlayerRunLeft = loadImage("TBFGE - Player Running Left.png");
-            imgPlayerStandLeft = loadImage("TBFGE - Player Standing Left.png");
-            imgPlayerUpRightFoot = loadImage("TBFGE - Player Running Up - Right Foot Down.png");
-            imgPlayerDownRightFoot = loadImage("TBFGE - Player Running Down - Right Foot Down.png");
-            imgDefenderRight = loadImage("TBFGE - Defender Facing Right.png");
-            imgDefenderKnocked = loadImage("TBFGE - Defender Knocked Down.png");
-            imgDefenderTackling = loadImage("TBFGE - Defender Tackling.png");
-            
-            imgPlayerTackled = loadImage("TBFGE - Player Tackled.png"); 
-            imgTackleFlash = loadImage("TBFGE - Tackle Flash.png");
-            
-            imgRefRight = loadImage("TBFGE - Referee Facing Right.png");
+        // Sources only; each Scaled set renders its own copies
+        loadSprite(SpriteCache.PLAYER_RUN, "TBFGE - Player Running Left.png");
+        loadSprite(SpriteCache.PLAYER_STAND, "TBFGE - Player Standing Left.png");
+        loadSprite(SpriteCache.PLAYER_UP, "TBFGE - Player Running Up - Right Foot Down.png");
+        loadSprite(SpriteCache.PLAYER_DOWN, "TBFGE - Player Running Down - Right Foot Down.png");
+        loadSprite(SpriteCache.DEFENDER, "TBFGE - Defender Facing Right.png");
+        loadSprite(SpriteCache.DEFENDER_KNOCKED, "TBFGE - Defender Knocked Down.png");
+        loadSprite(SpriteCache.DEFENDER_TACKLING, "TBFGE - Defender Tackling.png");
+        loadSprite(SpriteCache.PLAYER_TACKLED, "TBFGE - Player Tackled.png");
+        loadSprite(SpriteCache.REFEREE, "TBFGE - Referee Facing Right.png");
+
+        loader.load("TBFGE - Tackle Flash.png", () -> imgTackleFlash = loadImage("TBFGE - Tackle Flash.png"));
+        loader.load("TBFGE - Endzone Right.png", () -> {
             imgEndzoneRight = loadImage("TBFGE - Endzone Right.png");
             imgEndzoneLeft = flipImageHorizontally(imgEndzoneRight);
-            imgTouchdown = loadImage("TBFGE - Touch Down.png");
-            imgScoreboard = loadImage("TBFGE - Scoreboard Start.png");
-            imgMidfieldLogo = loadImage("TBFGE - Walrus Midfield Logo.png");
-            
-            imgFirstDownMarker = loadImage("TBFGE - First Down Marker.png");
+        });
+        loader.load("TBFGE - Touch Down.png", () -> imgTouchdown = loadImage("TBFGE - Touch Down.png"));
+        loader.load("TBFGE - Scoreboard Start.png", () -> imgScoreboard = loadImage("TBFGE - Scoreboard Start.png"));
+        loader.load("TBFGE - Walrus Midfield Logo.png", () -> imgMidfieldLogo = loadImage("TBFGE - Walrus Midfield Logo.png"));
+        loader.load("TBFGE - First Down Marker.png", () -> imgFirstDownMarker = loadImage("TBFGE - First Down Marker.png"));
+    }
 
-        } catch (Exception e) {
-            System.out.println("Error loading images: " + e.getMessage());
-        }
+    private void loadSprite(int sprite, String file) {
+        loader.load(file, () -> spriteSources[sprite] = loadImage(file));
     }
     
     private void loadSounds() {
-        clipCheer = loadClip("cheer.wav");
-        clipSeal = loadClip("seal.wav");
-        clipWhistle = loadClip("whistle.wav");
-        clipStep = loadClip("step.wav");
-        clipThud = loadClip("thud.wav");
-    }
-
-    private Clip loadClip(String filename) {
-        try {
-            File f = new File(filename);
-            if(!f.exists()) return null;
-            AudioInputStream audioIn = AudioSystem.getAudioInputStream(f);
-            Clip clip = AudioSystem.getClip();
-            clip.open(audioIn);
-            return clip;
-        } catch (Exception e) { return null; }
-    }
-
-    private void playSound(Clip clip) {
-        if (clip == null) return;
-        if (clip.isRunning()) clip.stop();
-        clip.setFramePosition(0);
-        clip.start();
+        loader.load("sounds", () -> {
+            mixer = AudioMixer.start(SOUND_FILES, new AudioMixer.LineOutput(), AudioMixer.DEFAULT_BUFFER_FRAMES);
+            if (mixer != null) Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(mixer.latencyReport())));
+        });
     }
-    
-    // --- Game Sequences ---
 
-    private void initGameSession() {
-        score = 0;
-        attempts = START_ATTEMPTS; 
-        timeRemaining = GAME_DURATION; 
-        touchdowns = 0;
-        gameState = GameState.MENU;
-    }
+    /** Installs the loaded assets and logs the startup timings. Safe to call from any thread; blocks until loading is done. */
+    synchronized void finishLoading() {
+        if (assetsReady) return;
+        loader.whenDone().join();
+        assetsReady = true;
+        if (interactive) loader.printReport();
 
-    private void prepareField() {
-        player = new Player(FIELD_END_X, VIEW_H / 2); 
-        cameraX = GRID_W - VIEW_W; 
-        
-        spawnDefendersAndRefs();
-        
-        // Initial First Down setup
-        firstDownMarkerX = player.x - FIRST_DOWN_DISTANCE;
-        attemptsRemaining = START_ATTEMPTS;
-        
-        if (firstDownMarkerX < FIELD_START_X) firstDownMarkerX = FIELD_START_X;
-        
-        if (firstDownMarkerX == FIELD_START_X) {
-            yardsToGo = player.x - (FIELD_START_X - 1);
-        } else {
-            yardsToGo = player.x - firstDownMarkerX;
+        synchronized (engine) {
+            scales.clear(); // sets made for the start screen lack the art
+            if (startRequested) engine.input(GameEngine.INPUT_START);
         }
-
-        gameClock.stop();
-        defenderTimer.stop();
-        tdBlinkTimer.stop();
-        
-        repaint();
+        requestRepaint();
     }
 
-    private void startFirstGameSequence() {
-        prepareField();
-        gameState = GameState.READY;
-        playSound(clipCheer);
-        Timer sealDelay = new Timer(750, e -> playSound(clipSeal));
-        sealDelay.setRepeats(false); 
-        sealDelay.start();
-        startPlayAfterDelay(3000);
+    private void playSound(GameEngine.Sound sound) {
+        if (mixer == null) return;
+        long start = System.nanoTime();
+        mixer.trigger(sound.ordinal());
+        metrics.sound.record(System.nanoTime() - start);
     }
     
-    private void resetPlaySequence() {
-        prepareField();
-        gameState = GameState.READY;
-        startPlayAfterDelay(3000);
-    }
-    
-    private void startPlayAfterDelay(int delay) {
-        Timer startTimer = new Timer(delay, e -> {
-             playSound(clipWhistle);
-             gameState = GameState.PLAYING;
-             gameClock.start();
-             defenderTimer.start();
-             repaint();
-        });
-        startTimer.setRepeats(false); startTimer.start();
-    }
-
-    private void resetAfterTackle(int newPlayerX) {
-        // 1. Clear entities
-        Iterator<Defender> dIter = defenders.iterator();
-        while (dIter.hasNext()) {
-            Defender d = dIter.next();
-            if (d.isKnockedDown || d.x >= newPlayerX) {
-                dIter.remove();
-            } else {
-                d.facingRight = true;
-            }
-        }
-        Iterator<Referee> rIter = referees.iterator();
-        while (rIter.hasNext()) {
-            Referee r = rIter.next();
-            if (r.x >= newPlayerX) {
-                rIter.remove();
-            } else {
-                r.facingRight = true;
-            }
-        }
-        
-        // 2. Determine Logic
-        if (newPlayerX < FIELD_START_X) {
-            scoreTouchdown();
-            return;
-        }
+    // --- Input ---
 
-        // --- FIX 1: Simplify and fix the First Down conversion logic ---
-        // Player moves towards the endzone (decreasing X). First down is achieved if newPlayerX is 
-        // less than or equal to the previous firstDownMarkerX.
-        if (newPlayerX <= firstDownMarkerX) {
-            // FIRST DOWN (Player reached or passed the marker)
-            firstDownMarkerX = newPlayerX - FIRST_DOWN_DISTANCE;
-            attemptsRemaining = START_ATTEMPTS;
-        } else {
-            // Failed to convert
-            attemptsRemaining--;
-        }
-        // --- END FIX 1 ---
-
-        if (firstDownMarkerX < FIELD_START_X) {
-            firstDownMarkerX = FIELD_START_X;
-        }
-        
-        // Check Turnover
-        if (attemptsRemaining <= 0) {
-            gameOver("GAME OVER");
+    @Override
+    public void keyPressed(KeyEvent e) {
+        if (e.getKeyCode() == KeyEvent.VK_F3) {
+            showMetrics = !showMetrics;
+            requestRepaint();
             return;
         }
-        
-        // Calculate yardsToGo for display
-        if (firstDownMarkerX == FIELD_START_X) {
-            yardsToGo = newPlayerX - (FIELD_START_X - 1);
-        } else {
-            yardsToGo = newPlayerX - firstDownMarkerX;
-        }
-        
-        // Reset player
-        player.x = newPlayerX;
-        player.y = VIEW_H / 2;
-        player.facingLeft = true;
-        player.state = Player.State.STAND;
-        
-        updateCamera();
-
-        gameState = GameState.READY;
-        // REPAINT ADDED HERE to visually update the "reset" state before the 3s delay
-        repaint();
-        
-        startPlayAfterDelay(3000);
-    }
-    
-    private void spawnDefendersAndRefs() {
-        defenders = new ArrayList<>();
-        referees = new ArrayList<>();
-        
-        double fieldRatio = (double)GRID_W / VIEW_W; 
-        int defendersPerView = Math.min(20, 10 + touchdowns * 2); 
-        int totalDefenders = (int) Math.round(defendersPerView * fieldRatio);
-        
-        int minSpawnX = FIELD_START_X; 
-        int maxSpawnX = FIELD_END_X;   
-        
-        Random rand = new Random();
-        
-        for (int i = 0; i < totalDefenders; i++) {
-            int dx, dy;
-            do {
-                dx = minSpawnX + rand.nextInt(maxSpawnX - minSpawnX); 
-                dy = rand.nextInt(VIEW_H);
-            } while (isOccupied(dx, dy)); 
-            defenders.add(new Defender(dx, dy));
+        if (e.getKeyCode() == KeyEvent.VK_P) {
+            clock.setPaused(!clock.paused());
+            requestRepaint();
+            return;
         }
-        
-        int totalReferees = Math.max(1, totalDefenders / 5);
-        for (int i = 0; i < totalReferees; i++) {
-            int rx, ry;
-            do {
-                rx = minSpawnX + rand.nextInt(maxSpawnX - minSpawnX); 
-                ry = rand.nextInt(VIEW_H);
-            } while (isOccupied(rx, ry));
-            referees.add(new Referee(rx, ry));
+        long start = System.nanoTime();
+        int cmd = command(e.getKeyCode());
+        if (cmd != GameEngine.INPUT_NONE && !clock.paused() && !input.holding(cmd)) {
+            if (!input.offer(cmd, start)) metrics.inputDropped();
+            if (cmd != GameEngine.INPUT_START) input.hold(cmd, start);
         }
+        metrics.input.record(System.nanoTime() - start);
     }
 
-    private boolean isOccupied(int x, int y) {
-        if (player != null && player.x == x && player.y == y) return true;
-        for (Defender d : defenders) if (!d.isKnockedDown && d.x == x && d.y == y) return true;
-        for (Referee r : referees) if (r.x == x && r.y == y) return true;
-        return false;
-    }
-
-    private void tickDefenders() {
-        if (gameState != GameState.PLAYING) return;
-        Random rand = new Random();
-
-        for (Defender d : defenders) {
-            if (d.isKnockedDown) continue;
-
-            int dx = 0, dy = 0;
-            
-            if (rand.nextDouble() < 0.6) continue; 
-            
-            if (rand.nextBoolean()) dx = rand.nextBoolean() ? 1 : -1;
-            else dy = rand.nextBoolean() ? 1 : -1;
-
-            if (dx > 0) d.facingRight = true; else if (dx < 0) d.facingRight = false;
-
-            int tx = d.x + dx;
-            int ty = d.y + dy;
-
-            if (tx <= 0 || tx >= GRID_W - 1 || ty < 0 || ty >= VIEW_H) continue;
-
-            if (tx == player.x && ty == player.y) {
-                playerTackled(d); 
-                return;
-            }
-
-            if (!isOccupied(tx, ty)) {
-                d.x = tx;
-                d.y = ty;
-            }
-        }
-        
-        Random refRand = new Random();
-        for (Referee r : referees) {
-            if (refRand.nextDouble() < 0.7) continue; 
-            int rx = (refRand.nextBoolean()) ? (refRand.nextBoolean() ? 1 : -1) : 0;
-            int ry = (rx == 0) ? (refRand.nextBoolean() ? 1 : -1) : 0;
-            if (rx > 0) r.facingRight = true; else if (rx < 0) r.facingRight = false;
-            int tx = r.x + rx; int ty = r.y + ry;
-            if (tx <= 0 || tx >= GRID_W - 1 || ty < 0 || ty >= VIEW_H) continue;
-            if (!isOccupied(tx, ty)) { r.x = tx; r.y = ty; }
+    private static int command(int keyCode) {
+        switch (keyCode) {
+            case KeyEvent.VK_UP: return GameEngine.INPUT_UP;
+            case KeyEvent.VK_DOWN: return GameEngine.INPUT_DOWN;
+            case KeyEvent.VK_LEFT: return GameEngine.INPUT_LEFT;
+            case KeyEvent.VK_RIGHT: return GameEngine.INPUT_RIGHT;
+            case KeyEvent.VK_SPACE: return GameEngine.INPUT_START;
+            default: return GameEngine.INPUT_NONE;
         }
-        repaint();
     }
 
     @Override
-    public void keyPressed(KeyEvent e) {
-        if (gameState == GameState.GAMEOVER && e.getKeyCode() == KeyEvent.VK_SPACE) {
-            initGameSession(); startFirstGameSequence(); return;
-        }
-        if (gameState != GameState.PLAYING || keyIsPressed) return;
-
-        int dx = 0, dy = 0;
-        switch (e.getKeyCode()) {
-            case KeyEvent.VK_UP: dy = -1; break;
-            case KeyEvent.VK_DOWN: dy = 1; break;
-            case KeyEvent.VK_LEFT: dx = -1; break;
-            case KeyEvent.VK_RIGHT: dx = 1; break;
-        }
-        if (dx != 0 || dy != 0) {
-            keyIsPressed = true;
-            movePlayer(dx, dy);
-        }
+    public void keyReleased(KeyEvent e) {
+        int cmd = command(e.getKeyCode());
+        if (cmd != GameEngine.INPUT_START) input.release(cmd);
     }
-
-    @Override
-    public void keyReleased(KeyEvent e) { keyIsPressed = false; } 
     @Override
     public void keyTyped(KeyEvent e) { }
     
-    public void mouseClicked(MouseEvent e) { if (gameState == GameState.MENU) startFirstGameSequence(); }
+    public void mouseClicked(MouseEvent e) {
+        long start = System.nanoTime();
+        synchronized (engine) {
+            if (engine.gameState == GameEngine.GameState.MENU) {
+                if (!assetsReady) startRequested = true;
+                else { engine.input(GameEngine.INPUT_START); requestRepaint(); }
+            }
+        }
+        metrics.input.record(System.nanoTime() - start);
+    }
     public void mousePressed(MouseEvent e) {} public void mouseReleased(MouseEvent e) {}
     public void mouseEntered(MouseEvent e) {} public void mouseExited(MouseEvent e) {}
 
-    private void movePlayer(int dx, int dy) {
-        if (dx != 0) { player.facingLeft = (dx < 0); player.state = (player.state == Player.State.RUN_SIDE) ? Player.State.STAND : Player.State.RUN_SIDE; }
-        if (dy != 0) { player.state = (dy < 0) ? Player.State.RUN_UP : Player.State.RUN_DOWN; player.stepLeftFoot = !player.stepLeftFoot; }
-
-        int tx = player.x + dx;
-        int ty = player.y + dy;
+    // --- Rendering ---
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        render(g, getWidth(), getHeight());
+    }
 
-        if (tx <= 0 || tx >= GRID_W - 1 || ty < 0 || ty >= VIEW_H) {
-            if (tx <= 0) {
-                scoreTouchdown(); 
-            } else {
-                // Do nothing - block movement
-            }
-            return;
+    /** Draws one full frame onto a w x h surface, holding the engine's monitor. Shared by Swing painting and the active render loop. */
+    void render(Graphics g, int w, int h) {
+        if (interactive && !FIRST_FRAME_LOGGED.get() && FIRST_FRAME_LOGGED.compareAndSet(false, true)) {
+            System.out.printf("startup: first frame after %.1f ms%n", loader.elapsedMillis());
         }
-
-        for (Referee r : referees) if (r.x == tx && r.y == ty) return;
-
-        Defender targetDef = null;
-        for (Defender d : defenders) {
-            if (!d.isKnockedDown && d.x == tx && d.y == ty) {
-                targetDef = d; break;
-            }
+        long start = System.nanoTime();
+        long allocStart = GameMetrics.threadAllocatedBytes();
+
+        // Draw in device pixels, centered, at the largest tile that fits. The surface's scale is
+        // undone and redone in place, so neither path copies the Graphics transform.
+        Graphics2D g2 = (Graphics2D) g;
+        GraphicsConfiguration gc = g2.getDeviceConfiguration();
+        if (gc != surfaceConfig) {
+            AffineTransform t = gc.getDefaultTransform();
+            surfaceConfig = gc;
+            surfaceScaleX = t.getScaleX();
+            surfaceScaleY = t.getScaleY();
         }
-
-        if (targetDef != null) {
-            int bx = tx + dx;
-            int by = ty + dy;
-            
-            boolean blockerBehind = false;
-            for (Defender d : defenders) {
-                 if (d != targetDef && !d.isKnockedDown && d.x == bx && d.y == by) {
-                     blockerBehind = true;
-                     break;
-                 }
+        boolean unitScale = surfaceScaleX == 1 && surfaceScaleY == 1;
+        int deviceW = unitScale ? w : (int) Math.round(w * surfaceScaleX);
+        int deviceH = unitScale ? h : (int) Math.round(h * surfaceScaleY);
+        // The engine may be stepped or overwritten by a network snapshot on another thread
+        synchronized (engine) {
+            Scaled s = scaled(tileFor(deviceW, deviceH));
+            int dx = (deviceW - s.width) / 2, dy = (deviceH - s.height) / 2;
+            if (!unitScale) g2.scale(1 / surfaceScaleX, 1 / surfaceScaleY);
+            if (dx != 0 || dy != 0 || s.width != deviceW || s.height != deviceH) {
+                g2.setColor(Color.BLACK);
+                g2.fillRect(0, 0, deviceW, deviceH);
             }
-
-            if (blockerBehind || bx <= 0 || bx >= GRID_W - 1 || by < 0 || by >= VIEW_H) {
-                playerTackled(targetDef);
-                return;
-            } else {
-                targetDef.isKnockedDown = true;
-                score++; 
-                playSound(clipThud);
-                player.x = tx; player.y = ty;
-            }
-        } else {
-            player.x = tx; player.y = ty;
+            g2.translate(dx, dy);
+            drawFrame(g, s);
+            g2.translate(-dx, -dy);
+            if (!unitScale) g2.scale(surfaceScaleX, surfaceScaleY);
         }
-        
-        playSound(clipStep);
-        updateCamera();
-
-        if (player.x < FIELD_START_X) scoreTouchdown();
-        repaint();
+        if (showMetrics) drawMetrics(g);
+        long end = System.nanoTime();
+        long keyDown = pixelStamp.getAndSet(0);
+        if (keyDown != 0) metrics.keyToPixel.record(end - keyDown);
+        metrics.frameAllocated(allocStart);
+        metrics.paint.record(end - start);
     }
-    
-    private void updateCamera() {
-        int playerScreenX = player.x - cameraX;
-        if (playerScreenX < 9 && cameraX > 0) cameraX--;
-        if (playerScreenX > 11 && cameraX < GRID_W - VIEW_W) cameraX++;
+
+    /** Generates the field's grass from seed, caching each texture under cacheDir if it is not null. */
+    void useGrass(long seed, File cacheDir) {
+        grass = new GrassTexture(seed, FIELD_COLOR.getRGB(), engine.gridW, VIEW_H, FIELD_START_X, engine.fieldEndX, cacheDir);
+        scales.clear();
     }
 
-    private void playerTackled(Defender tackler) {
-        playSound(clipThud);
-        gameState = GameState.TACKLED;
-        tackleSource = tackler != null ? new Point(tackler.x, tackler.y) : null; 
-        
-        defenderTimer.stop(); gameClock.stop();
-        repaint();
+    /** Window size that shows the field at the given tile size. */
+    static Dimension sizeForTile(int tile) {
+        return new Dimension(VIEW_W * tile + (int) (2.5 * tile), VIEW_H * tile + 2 * sidelineFor(tile));
+    }
 
-        Timer pauseTimer = new Timer(2000, e -> {
-            resetAfterTackle(player.x);
-        });
-        pauseTimer.setRepeats(false); pauseTimer.start();
+    private static int sidelineFor(int tile) {
+        return Math.max(1, Math.round((float) SIDELINE_H * tile / TILE_SIZE));
     }
 
-    private void scoreTouchdown() {
-        playSound(clipCheer);
-        gameState = GameState.TOUCHDOWN;
-        score += 7;
-        touchdowns++;
-        attemptsRemaining = START_ATTEMPTS; 
-        attempts = START_ATTEMPTS; 
-        defenderTimer.stop(); gameClock.stop();
-        
-        tdBlinkCount = 0;
-        showTDSprite = true;
-        tdBlinkTimer.start();
-        
-        repaint();
+    // Largest tile whose window fits in w x h
+    private static int tileFor(int w, int h) {
+        int tile = Math.max(MIN_TILE, (int) Math.min(w / (VIEW_W + 2.5), (double) h / VIEW_H));
+        while (tile > MIN_TILE) {
+            Dimension d = sizeForTile(tile);
+            if (d.width <= w && d.height <= h) break;
+            tile--;
+        }
+        return tile;
     }
 
-    private void gameOver(String msg) {
-        gameState = GameState.GAMEOVER;
-        gameClock.stop(); defenderTimer.stop();
-        repaint();
+    private Scaled scaled(int tile) {
+        for (int i = 0; i < scales.size(); i++) {
+            Scaled s = scales.get(i);
+            if (s.tile != tile) continue;
+            if (i > 0) scales.add(0, scales.remove(i));
+            return s;
+        }
+        Scaled s = new Scaled(tile);
+        scales.add(0, s);
+        if (scales.size() > SCALES_CACHED) scales.remove(scales.size() - 1);
+        return s;
     }
 
-    // --- Rendering ---
-    @Override
-    protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        if (gameState == GameState.MENU) { drawStartScreen(g); return; }
+    private void drawFrame(Graphics g, Scaled s) {
+        GameEngine.GameState gameState = engine.gameState;
+        if (gameState == GameEngine.GameState.MENU) { s.hud.drawStartScreen(g); return; }
         
-        drawField(g);
-        drawFirstDownMarker(g);
-        drawEntities(g);
+        drawField(g, s);
+        drawFirstDownMarker(g, s);
+        drawEntities(g, s);
         
-        drawSidelines(g);
-        drawScoreboard(g);
+        s.hud.drawScoreboard(g, s.fieldW, engine.timeRemaining, engine.score, engine.yardsToGo, engine.attemptsRemaining);
         
-        if (gameState == GameState.TOUCHDOWN && showTDSprite) drawTouchdownAnim(g);
-        if (gameState == GameState.GAMEOVER) drawGameOver(g);
+        if (gameState == GameEngine.GameState.TOUCHDOWN && engine.showTDSprite) drawTouchdownAnim(g, s);
+        if (gameState == GameEngine.GameState.GAMEOVER) s.hud.drawGameOver(g, engine.timeRemaining <= 0);
+        else if (clock.paused()) s.hud.drawPaused(g);
     }
 
-    private void drawStartScreen(Graphics g) {
-        g.setColor(new Color(1, 128, 1)); 
-        g.fillRect(0, 0, WINDOW_W, WINDOW_H);
-        
-        g.setColor(new Color(1, 96, 1)); 
-        int circleSize = 280;
-        g.fillOval(WINDOW_W/2 - circleSize/2, WINDOW_H/2 - circleSize/2, circleSize, circleSize);
-        
-        g.setColor(Color.WHITE); 
-        g.setFont(new Font("Arial", Font.BOLD, 22));
-        String msg = "Click here to start!";
+    private void drawMetrics(Graphics g) {
+        String[] lines = metrics.overlayLines();
+        g.setFont(METRICS_FONT);
         FontMetrics fm = g.getFontMetrics();
-        g.drawString(msg, WINDOW_W/2 - fm.stringWidth(msg)/2, WINDOW_H/2 + 8);
+        int w = 0;
+        for (String line : lines) w = Math.max(w, fm.stringWidth(line));
+        g.setColor(METRICS_BACKGROUND);
+        g.fillRect(4, 4, w + 12, lines.length * fm.getHeight() + 8);
+        g.setColor(Color.WHITE);
+        for (int i = 0; i < lines.length; i++) g.drawString(lines[i], 10, 8 + fm.getAscent() + i * fm.getHeight());
+    }
+
+    private void drawField(Graphics g, Scaled s) {
+        int cameraX = engine.cameraX;
+        if (s.fieldStrip == null || cameraX < s.stripX || cameraX + VIEW_W > s.stripX + stripCols) {
+            // Re-center the strip on the camera; on the standard field it always starts at 0
+            s.stripX = Math.max(0, Math.min(engine.gridW - stripCols, cameraX - (stripCols - VIEW_W) / 2));
+            s.fieldStrip = buildFieldStrip(s);
+        }
+        int srcX = (cameraX - s.stripX) * s.tile;
+        g.drawImage(s.fieldStrip, 0, 0, s.fieldW, s.height, srcX, 0, srcX + s.fieldW, s.height, null);
     }
 
-    private void drawField(Graphics g) {
-        int offsetY = SIDELINE_H;
-        
-        if (imgGrassTexture != null) g.drawImage(imgGrassTexture, 0, offsetY, null);
-        
-        int logoGridX = 20; 
-        int logoDrawX = (logoGridX - cameraX) * TILE_SIZE;
-        int logoDrawY = (VIEW_H * TILE_SIZE / 2) - (4 * TILE_SIZE / 2) + offsetY;
+    private BufferedImage buildFieldStrip(Scaled s) {
+        int tile = s.tile, stripX = s.stripX;
+        int stripW = stripCols * tile;
+        int fieldEndX = engine.fieldEndX;
+        GraphicsConfiguration gc = SpriteCache.defaultConfiguration();
+        BufferedImage strip = gc != null
+                ? gc.createCompatibleImage(stripW, s.height, Transparency.OPAQUE)
+                : new BufferedImage(stripW, s.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = strip.createGraphics();
+        int offsetY = s.sidelineH;
+
+        g.setColor(FIELD_COLOR);
+        g.fillRect(0, 0, stripW, s.height);
+        g.drawImage(grass.render(tile, stripX, stripCols), 0, offsetY, null);
         
-        if (imgMidfieldLogo != null) {
-             if (logoDrawX + 4 * TILE_SIZE > 0 && logoDrawX < VIEW_W * TILE_SIZE) {
-                g.drawImage(imgMidfieldLogo, logoDrawX, logoDrawY, 4 * TILE_SIZE, 4 * TILE_SIZE, null);
-             }
-        }
+        int logoDrawX = (engine.gridW / 2 - 2 - stripX) * tile;
+        int logoDrawY = (VIEW_H * tile / 2) - (4 * tile / 2) + offsetY;
+        if (imgMidfieldLogo != null) g.drawImage(imgMidfieldLogo, logoDrawX, logoDrawY, 4 * tile, 4 * tile, null);
 
-        for (int i = 0; i < VIEW_W; i++) {
-            int gridX = cameraX + i;
-            int drawX = i * TILE_SIZE;
+        int lineW = Math.max(1, Math.round(2f * tile / TILE_SIZE));
+        for (int gridX = stripX; gridX < stripX + stripCols; gridX++) {
+            int drawX = (gridX - stripX) * tile;
             
-            if (gridX >= FIELD_START_X && gridX <= FIELD_END_X - 1) {
-                g.setColor(new Color(255, 255, 255, 100)); 
-                g.fillRect(drawX, offsetY, 2, VIEW_H * TILE_SIZE);
+            if (gridX >= FIELD_START_X && gridX <= fieldEndX - 1) {
+                g.setColor(YARD_LINE_COLOR); 
+                g.fillRect(drawX, offsetY, lineW, VIEW_H * tile);
             }
             
             if (gridX < FIELD_START_X) { 
-                drawEndzoneSlice(g, imgEndzoneLeft, gridX, drawX, offsetY, Color.BLUE);
+                drawEndzoneSlice(g, imgEndzoneLeft, gridX, drawX, offsetY, tile, Color.BLUE);
             }
-            if (gridX >= FIELD_END_X) { 
-                drawEndzoneSlice(g, imgEndzoneRight, gridX - FIELD_END_X, drawX, offsetY, Color.RED);
+            if (gridX >= fieldEndX) { 
+                drawEndzoneSlice(g, imgEndzoneRight, gridX - fieldEndX, drawX, offsetY, tile, Color.RED);
             }
         }
+
+        g.setColor(SIDELINE_COLOR);
+        g.fillRect(0, 0, stripW, s.sidelineH);
+        g.fillRect(0, s.height - s.sidelineH, stripW, s.sidelineH);
+        g.dispose();
+        return strip;
     }
     
-    private void drawEndzoneSlice(Graphics g, BufferedImage img, int sliceIndex, int drawX, int drawY, Color fallback) {
-        int sliceHeight = VIEW_H * TILE_SIZE;
+    private void drawEndzoneSlice(Graphics g, BufferedImage img, int sliceIndex, int drawX, int drawY, int tile, Color fallback) {
+        int sliceHeight = VIEW_H * tile;
         if (img == null) { 
-            g.setColor(fallback); g.fillRect(drawX, drawY, TILE_SIZE, sliceHeight);
+            g.setColor(fallback); g.fillRect(drawX, drawY, tile, sliceHeight);
             return;
         }
         int srcWidthPerTile = img.getWidth() / 2; 
         int srcX1 = sliceIndex * srcWidthPerTile; 
         int srcX2 = srcX1 + srcWidthPerTile;      
-        g.drawImage(img, drawX, drawY, drawX + TILE_SIZE, drawY + sliceHeight, srcX1, 0, srcX2, img.getHeight(), null);
+        g.drawImage(img, drawX, drawY, drawX + tile, drawY + sliceHeight, srcX1, 0, srcX2, img.getHeight(), null);
     }
 
-    private void drawFirstDownMarker(Graphics g) {
-        if (imgFirstDownMarker == null) return;
-        int markerLineX = firstDownMarkerX;
+    private void drawFirstDownMarker(Graphics g, Scaled s) {
+        if (s.firstDownMarker == null) return;
+        int cameraX = engine.cameraX;
+        int markerLineX = engine.firstDownMarkerX;
         
         if (markerLineX <= FIELD_START_X || markerLineX < cameraX || markerLineX > cameraX + VIEW_W) {
             return;
         }
 
         // --- FIX 2: Shift drawing position 1 tile to the right visually ---
-        int drawX = ((markerLineX + 1) - cameraX) * TILE_SIZE; 
+        int drawX = ((markerLineX + 1) - cameraX) * s.tile; 
         // --- END FIX 2 ---
         
-        int markerW = TILE_SIZE / 3;
-        int markerH = TILE_SIZE / 4;
-        int drawY = WINDOW_H - SIDELINE_H - markerH; 
+        int markerW = s.firstDownMarker.getWidth();
+        int markerH = s.firstDownMarker.getHeight();
+        int drawY = s.height - s.sidelineH - markerH; 
         drawX -= markerW / 2; 
-        g.drawImage(imgFirstDownMarker, drawX, drawY, markerW, markerH, null);
-    }
-
-    private void drawSidelines(Graphics g) {
-        g.setColor(SIDELINE_COLOR);
-        g.fillRect(0, 0, VIEW_W * TILE_SIZE, SIDELINE_H);
-        g.fillRect(0, WINDOW_H - SIDELINE_H, VIEW_W * TILE_SIZE, SIDELINE_H);
-    }
-
-    private void drawEntities(Graphics g) {
-        int offX = -cameraX * TILE_SIZE;
-        int offY = SIDELINE_H; 
-        
-        for (Defender d : defenders) if (d.isKnockedDown) drawSprite(g, imgDefenderKnocked, d.x, d.y, offX, offY, false);
+        g.drawImage(s.firstDownMarker, drawX, drawY, null);
+    }
+
+    private void drawEntities(Graphics g, Scaled s) {
+        GameEngine.GameState gameState = engine.gameState;
+        GameEngine.Player player = engine.player;
+        boolean tackling = gameState == GameEngine.GameState.TACKLED && engine.tackleX >= 0;
+        int offX = -engine.cameraX * s.tile;
+        int offY = s.sidelineH; 
+
+        // Only the chunks under the window are visited, however long the field is
+        ChunkIndex defenderChunks = engine.defenderChunks, refereeChunks = engine.refereeChunks;
+        EntityStore defenders = engine.defenders, referees = engine.referees;
+        int firstChunk = ChunkIndex.chunkOf(engine.cameraX);
+        int lastChunk = ChunkIndex.chunkOf(engine.cameraX + VIEW_W - 1);
+        
+        for (int c = firstChunk; c <= lastChunk; c++) {
+            for (int i = 0; i < defenderChunks.size(c); i++) {
+                int d = defenderChunks.member(c, i);
+                if (defenders.knockedDown(d)) drawSprite(g, s, SpriteCache.DEFENDER_KNOCKED, defenders.x[d], defenders.y[d], offX, offY, false);
+            }
+        }
 
-        if (gameState == GameState.TACKLED && imgPlayerTackled != null) {
-            drawSprite(g, imgPlayerTackled, player.x, player.y, offX, offY, false);
+        if (gameState == GameEngine.GameState.TACKLED) {
+            drawSprite(g, s, SpriteCache.PLAYER_TACKLED, player.x, player.y, offX, offY, false);
         } else {
-            BufferedImage sprite = imgPlayerStandLeft;
+            int sprite = SpriteCache.PLAYER_STAND;
             boolean flip = !player.facingLeft; 
-            if (player.state == Player.State.RUN_SIDE) sprite = imgPlayerRunLeft;
-            else if (player.state == Player.State.RUN_UP) { sprite = player.stepLeftFoot ? flipImageHorizontally(imgPlayerUpRightFoot) : imgPlayerUpRightFoot; flip = false; }
-            else if (player.state == Player.State.RUN_DOWN) { sprite = player.stepLeftFoot ? flipImageHorizontally(imgPlayerDownRightFoot) : imgPlayerDownRightFoot; flip = false; }
-            drawSprite(g, sprite, player.x, player.y, offX, offY, flip);
+            if (player.state == GameEngine.Player.State.RUN_SIDE) sprite = SpriteCache.PLAYER_RUN;
+            else if (player.state == GameEngine.Player.State.RUN_UP) { sprite = SpriteCache.PLAYER_UP; flip = player.stepLeftFoot; }
+            else if (player.state == GameEngine.Player.State.RUN_DOWN) { sprite = SpriteCache.PLAYER_DOWN; flip = player.stepLeftFoot; }
+            drawSprite(g, s, sprite, player.x, player.y, offX, offY, flip);
         }
 
-        for (Defender d : defenders) {
-            if (!d.isKnockedDown) {
-                if (gameState == GameState.TACKLED && tackleSource != null && d.x == tackleSource.x && d.y == tackleSource.y) {
-                    boolean flipTackler = (player.x < d.x);
-                    drawSprite(g, imgDefenderTackling, d.x, d.y, offX, offY, flipTackler);
+        for (int c = firstChunk; c <= lastChunk; c++) {
+            for (int i = 0; i < defenderChunks.size(c); i++) {
+                int d = defenderChunks.member(c, i);
+                if (defenders.knockedDown(d)) continue;
+                int dx = defenders.x[d], dy = defenders.y[d];
+                if (tackling && dx == engine.tackleX && dy == engine.tackleY) {
+                    boolean flipTackler = (player.x < dx);
+                    drawSprite(g, s, SpriteCache.DEFENDER_TACKLING, dx, dy, offX, offY, flipTackler);
                 } else {
-                    drawSprite(g, imgDefenderRight, d.x, d.y, offX, offY, !d.facingRight);
+                    drawSprite(g, s, SpriteCache.DEFENDER, dx, dy, offX, offY, !defenders.facingRight(d));
                 }
             }
         }
         
-        for (Referee r : referees) drawSprite(g, imgRefRight, r.x, r.y, offX, offY, !r.facingRight);
+        for (int c = firstChunk; c <= lastChunk; c++) {
+            for (int i = 0; i < refereeChunks.size(c); i++) {
+                int r = refereeChunks.member(c, i);
+                drawSprite(g, s, SpriteCache.REFEREE, referees.x[r], referees.y[r], offX, offY, !referees.facingRight(r));
+            }
+        }
 
-        if (gameState == GameState.TACKLED && imgTackleFlash != null && tackleSource != null) {
-            int pX = (player.x * TILE_SIZE) + offX;
-            int pY = (player.y * TILE_SIZE) + offY;
-            int dX = (tackleSource.x * TILE_SIZE) + offX;
-            int dY = (tackleSource.y * TILE_SIZE) + offY;
+        if (tackling && s.tackleFlash != null) {
+            int pX = (player.x * s.tile) + offX;
+            int pY = (player.y * s.tile) + offY;
+            int dX = (engine.tackleX * s.tile) + offX;
+            int dY = (engine.tackleY * s.tile) + offY;
             
-            int midX = (pX + dX + TILE_SIZE) / 2;
-            int midY = (pY + dY + TILE_SIZE) / 2;
+            int midX = (pX + dX + s.tile) / 2;
+            int midY = (pY + dY + s.tile) / 2;
             
-            int flashW = TILE_SIZE * 2; 
-            int flashH = TILE_SIZE;     
+            int flashW = s.tackleFlash.getWidth(); 
+            int flashH = s.tackleFlash.getHeight();     
             
-            g.drawImage(imgTackleFlash, midX - flashW/2, midY - flashH/2, flashW, flashH, null);
+            g.drawImage(s.tackleFlash, midX - flashW/2, midY - flashH/2, null);
         }
     }
     
-    private void drawSprite(Graphics g, BufferedImage img, int gridX, int gridY, int offsetX, int offsetY, boolean flipHorizontal) {
-        if(img == null || gridX < cameraX || gridX >= cameraX + VIEW_W) return;
-        int x = (gridX * TILE_SIZE) + offsetX; 
-        int y = (gridY * TILE_SIZE) + offsetY; 
-        if (flipHorizontal) g.drawImage(img, x + TILE_SIZE, y, -TILE_SIZE, TILE_SIZE, null);
-        else g.drawImage(img, x, y, TILE_SIZE, TILE_SIZE, null);
-    }
-
-    private void drawTouchdownAnim(Graphics g) {
-        if (imgTouchdown == null) return;
-        int w = imgTouchdown.getWidth() / 2;
-        int h = imgTouchdown.getHeight() / 2;
-        int drawX = (FIELD_START_X * TILE_SIZE) + 1; 
-        int drawY = (WINDOW_H / 2) - h / 2;
-        g.drawImage(imgTouchdown, drawX, drawY, w, h, null);
-    }
-
-    private void drawScoreboard(Graphics g) {
-        int x = VIEW_W * TILE_SIZE;
-        g.setColor(Color.BLACK); g.fillRect(x, 0, SCOREBOARD_W, WINDOW_H);
-        if (imgScoreboard != null) g.drawImage(imgScoreboard, x, 0, SCOREBOARD_W, WINDOW_H, null);
-        
-        g.setColor(Color.BLACK); g.setFont(new Font("Impact", Font.PLAIN, 20));
-        
-        drawCenteredText(g, String.valueOf(timeRemaining), x + SCOREBOARD_W/2, 74); 
-        drawCenteredText(g, String.valueOf(score), x + SCOREBOARD_W/2, 139);        
-        
-        drawCenteredText(g, String.valueOf(yardsToGo), x + SCOREBOARD_W/2, 224);
-        
-        drawCenteredText(g, String.valueOf(attemptsRemaining), x + SCOREBOARD_W/2, 313);     
+    private void drawSprite(Graphics g, Scaled s, int sprite, int gridX, int gridY, int offsetX, int offsetY, boolean flipHorizontal) {
+        int cameraX = engine.cameraX;
+        if(gridX < cameraX || gridX >= cameraX + VIEW_W) return;
+        int x = (gridX * s.tile) + offsetX; 
+        int y = (gridY * s.tile) + offsetY; 
+        g.drawImage(s.sprites.get(sprite, flipHorizontal), x, y, null);
     }
-    
-    private void drawCenteredText(Graphics g, String text, int x, int y) {
-        FontMetrics fm = g.getFontMetrics();
-        g.drawString(text, x - fm.stringWidth(text)/2, y);
-    }
-    
-    private void drawGameOver(Graphics g) {
-        g.setColor(new Color(0,0,0,180)); g.fillRect(0, 0, VIEW_W * TILE_SIZE, WINDOW_H);
-        g.setColor(Color.WHITE); g.setFont(new Font("Arial", Font.BOLD, 40));
-        String msg = timeRemaining <= 0 ? "TIME'S UP!" : "GAME OVER";
-        g.drawString(msg, (VIEW_W * TILE_SIZE)/2 - g.getFontMetrics().stringWidth(msg)/2, WINDOW_H/2);
-        g.setFont(new Font("Arial", Font.BOLD, 20)); String sub = "Press SPACE to Restart";
-        g.drawString(sub, (VIEW_W * TILE_SIZE)/2 - g.getFontMetrics().stringWidth(sub)/2, WINDOW_H/2 + 50);
+
+    private void drawTouchdownAnim(Graphics g, Scaled s) {
+        if (s.touchdown == null) return;
+        int h = s.touchdown.getHeight();
+        int drawX = (FIELD_START_X * s.tile) + 1; 
+        int drawY = (s.height / 2) - h / 2;
+        g.drawImage(s.touchdown, drawX, drawY, null);
     }
 
+    /** Usage: java TheBestFootballGame [--active] [--fps N] [--record file] [--field-width N] [--autoplay budget-ms] [--speed x]
+     *                                 [--buffered-moves N] [--key-repeat ms (0 = off)] [--resizable]
+     *                                 [--grass-seed N] [--grass-cache dir] [--stats file | --no-stats] */
     public static void main(String[] args) {
+        boolean active = false, resizable = false;
+        int fps = 60;
+        File recordTo = null;
+        int autoplayMs = 0;
+        double speed = 1;
+        int bufferedMoves = DEFAULT_BUFFERED_MOVES, keyRepeatMs = DEFAULT_KEY_REPEAT_MS;
+        Long grassSeed = null;
+        File grassCache = null;
+        File statsFile = new File(System.getProperty("user.home"), ".tbfge-stats");
+        GameConfig config = new GameConfig();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--active")) active = true;
+            else if (args[i].equals("--fps")) fps = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--record")) recordTo = new File(args[++i]);
+            else if (args[i].equals("--field-width")) config.fieldWidth = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--autoplay")) autoplayMs = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--speed")) speed = Double.parseDouble(args[++i]);
+            else if (args[i].equals("--buffered-moves")) bufferedMoves = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--key-repeat")) keyRepeatMs = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--resizable")) resizable = true;
+            else if (args[i].equals("--grass-seed")) grassSeed = Long.parseLong(args[++i]);
+            else if (args[i].equals("--grass-cache")) grassCache = new File(args[++i]);
+            else if (args[i].equals("--stats")) statsFile = new File(args[++i]);
+            else if (args[i].equals("--no-stats")) statsFile = null;
+        }
+        final boolean activeMode = active, resizableWindow = resizable;
+        final int targetFps = fps;
+        final double timeScale = speed;
+        final File grassCacheDir = grassCache;
+        InputQueue input = new InputQueue(bufferedMoves, KEY_REPEAT_DELAY_MS, keyRepeatMs);
+
+        GameEngine engine = new GameEngine(new SplittableRandom().nextLong(), config);
+        final long fieldSeed = grassSeed != null ? grassSeed : engine.seed;
+        if (recordTo != null) {
+            InputRecording rec = new InputRecording(engine.seed, engine.gridW, engine.rows);
+            engine.setRecorder(rec);
+            File file = recordTo;
+            // Saved on the way out so closing the window is all it takes; replay with: java Replay <file>
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                synchronized (engine) { rec.finish(engine); }
+                try {
+                    rec.save(file);
+                    System.out.println("Recorded " + rec.size() + " inputs over " + rec.finalTick + " ticks to " + file);
+                } catch (IOException e) {
+                    System.out.println("Error saving recording: " + e.getMessage());
+                }
+            }));
+        }
+
+        // The bot's games would crowd the leaderboard, so autoplay keeps no stats
+        if (statsFile != null && autoplayMs == 0) {
+            try {
+                StatsStore stats = new StatsStore(statsFile);
+                System.out.print(stats.leaderboard());
+                engine.setStats(stats);
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        stats.close();
+                    } catch (IOException e) {
+                        System.out.println("Error closing stats log: " + e.getMessage());
+                    }
+                }));
+            } catch (IOException e) {
+                System.out.println("Error opening stats log: " + e.getMessage());
+            }
+        }
+
+        if (autoplayMs > 0) {
+            AutoPlayer bot = new AutoPlayer(autoplayMs, 0, 8, 1000 / (4 * GameEngine.TICK_MS),
+                    Runtime.getRuntime().availableProcessors(), engine.seed);
+            AutoPlayer.attract(engine, bot);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(bot.report())));
+        }
+
         SwingUtilities.invokeLater(() -> {
             JFrame frame = new JFrame("The Best Football Game");
-            TheBestFootballGame game = new TheBestFootballGame();
-            frame.add(game); frame.pack();
             frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-            frame.setResizable(false); frame.setLocationRelativeTo(null);
+            frame.setResizable(resizableWindow);
+            TheBestFootballGame game = new TheBestFootballGame(engine, input);
+            game.metrics.register();
+            game.clock.setScale(timeScale);
+            game.useGrass(fieldSeed, grassCacheDir);
+            ActiveRenderLoop loop = activeMode ? new ActiveRenderLoop(engine, game, targetFps) : null;
+            frame.add(activeMode ? loop.canvas : game);
+            frame.pack();
+            frame.setLocationRelativeTo(null);
             frame.setVisible(true);
+            if (activeMode) loop.start();
+            else game.startLogicTimer();
         });
     }
-
-    class Player {
-        int x, y; boolean facingLeft = true, stepLeftFoot = false; State state = State.RUN_SIDE;
-        enum State { STAND, RUN_SIDE, RUN_UP, RUN_DOWN }
-        Player(int x, int y) { this.x = x; this.y = y; }
-    }
-    class Defender {
-        int x, y; boolean isKnockedDown = false, facingRight = true; 
-        Defender(int x, int y) { this.x = x; this.y = y; }
-    }
-    class Referee {
-        int x, y; boolean facingRight = true;
-        Referee(int x, int y) { this.x = x; this.y = y; }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,451 @@
+import javax.imageio.ImageIO;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a recorded or seeded game headless and exports it as video: each frame is drawn by the
+ * game's own render code into an offscreen image, encoded on a pool of threads and written in
+ * order, either as a numbered PNG sequence or as one uncompressed AVI. A fixed set of frame
+ * buffers is recycled through the pipeline, so memory stays flat however long the export runs.
+ * --touchdowns keeps only the plays that end in a touchdown, for a highlight reel; a first
+ * headless pass finds them, which costs little next to rendering.
+ *
+ * Usage: java VideoExport (<recording> | --seed S [--moves-per-sec M]) --out file.avi|dir
+ *                         [--fps N] [--tile px] [--touchdowns] [--threads T]
+ */
+public class VideoExport {
+
+    static final int DEFAULT_FPS = 20;
+    static final int LEAD_IN_TICKS = 1000 / GameEngine.TICK_MS; // shown before each highlight's kickoff
+
+    /** Something that drives an engine through one game. */
+    interface Source {
+        GameEngine engine();
+        boolean finished();
+        void advance();
+    }
+
+    static Source replay(InputRecording rec) {
+        Replay.Cursor cursor = new Replay.Cursor(rec);
+        return new Source() {
+            public GameEngine engine() { return cursor.engine; }
+            public boolean finished() { return cursor.finished(); }
+            public void advance() { cursor.advance(); }
+        };
+    }
+
+    /** A seeded game played to the end by the batch runner's policy. */
+    static Source seeded(long seed, int movesPerSec) {
+        GameEngine engine = new GameEngine(seed);
+        int moveEvery = Math.max(1, 1000 / (movesPerSec * GameEngine.TICK_MS));
+        engine.input(GameEngine.INPUT_START);
+        return new Source() {
+            int sinceMove = 0;
+            public GameEngine engine() { return engine; }
+            public boolean finished() { return engine.gameState == GameEngine.GameState.GAMEOVER; }
+            public void advance() {
+                int input = GameEngine.INPUT_NONE;
+                if (engine.gameState == GameEngine.GameState.PLAYING && ++sinceMove >= moveEvery) {
+                    input = BatchRunner.chooseMove(engine);
+                    sinceMove = 0;
+                }
+                engine.step(input);
+            }
+        };
+    }
+
+    /**
+     * Tick ranges { from, to } covering each play that ends in a touchdown, from a little before
+     * its kickoff until the celebration is over.
+     */
+    static List<long[]> touchdownRanges(Source source) {
+        List<long[]> ranges = new ArrayList<>();
+        GameEngine e = source.engine();
+        GameEngine.GameState prev = e.gameState;
+        long kickoff = 0, touchdown = -1;
+        while (!source.finished()) {
+            source.advance();
+            GameEngine.GameState now = e.gameState;
+            if (now == prev) continue;
+            if (now == GameEngine.GameState.PLAYING) kickoff = e.tick;
+            if (now == GameEngine.GameState.TOUCHDOWN) touchdown = e.tick;
+            if (prev == GameEngine.GameState.TOUCHDOWN && touchdown >= 0) {
+                ranges.add(new long[] { Math.max(0, kickoff - LEAD_IN_TICKS), e.tick });
+                touchdown = -1;
+            }
+            prev = now;
+        }
+        if (touchdown >= 0) ranges.add(new long[] { Math.max(0, kickoff - LEAD_IN_TICKS), e.tick });
+        return ranges;
+    }
+
+    // --- Pipeline ---
+
+    /** One recycled slot: the rendered image and the bytes it encodes to. */
+    static final class Frame {
+        final BufferedImage image;
+        final Graphics2D g;
+        final int[] pixels;
+        final Bytes out = new Bytes();
+
+        Frame(int w, int h) {
+            image = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            g = image.createGraphics();
+            pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        }
+    }
+
+    /** An encoded frame. Encoders write or fill it in place and the writer reads its array directly, so no copy is made. */
+    static final class Bytes extends ByteArrayOutputStream {
+        Bytes() { super(1 << 16); }
+
+        byte[] array() { return buf; }
+
+        /** Holds exactly n bytes from now on, to be filled in place through the returned array. */
+        byte[] fill(int n) {
+            if (buf.length < n) buf = new byte[n];
+            count = n;
+            return buf;
+        }
+    }
+
+    /** Where encoded frames go. encode() runs on the pool and may not touch shared state; write() runs in frame order. */
+    interface Format {
+        void open(int w, int h, int frameMs) throws IOException;
+        void encode(Frame frame) throws IOException;
+        void write(Frame frame) throws IOException;
+        long bytesWritten();
+        void close() throws IOException;
+        /** Closes after a failed export and deletes what was written. */
+        void discard();
+    }
+
+    /** Frames are taken every so many ticks, so the rate actually exported is the nearest that divides the tick rate. */
+    static int ticksPerFrame(int fps) {
+        return Math.max(1, Math.round(1000f / fps / GameEngine.TICK_MS));
+    }
+
+    /** Runs the export and returns { frames, seconds }. */
+    static double[] export(Source source, List<long[]> ranges, Format format, int fps, int tile, int threads) throws Exception {
+        GameEngine engine = source.engine();
+        TheBestFootballGame view = TheBestFootballGame.offscreen(engine);
+        Dimension size = TheBestFootballGame.sizeForTile(tile);
+        int ticksPerFrame = ticksPerFrame(fps);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "frame-encoder");
+            t.setDaemon(true);
+            return t;
+        });
+        // Twice the encoders' worth of slots keeps them busy while the oldest frame is written
+        ArrayDeque<Frame> free = new ArrayDeque<>();
+        for (int i = 0; i < 2 * threads; i++) free.add(new Frame(size.width, size.height));
+        ArrayDeque<Future<Frame>> pending = new ArrayDeque<>();
+
+        format.open(size.width, size.height, ticksPerFrame * GameEngine.TICK_MS);
+        long frames = 0;
+        long start = System.nanoTime();
+        int range = 0;
+        boolean complete = false;
+        try {
+            while (true) {
+                long tick = engine.tick;
+                while (ranges != null && range < ranges.size() && tick > ranges.get(range)[1]) range++;
+                if (ranges != null && range == ranges.size()) break;
+                boolean shown = ranges == null || tick >= ranges.get(range)[0];
+                boolean last = source.finished(); // the game-over frame ends the video whatever the tick
+                if (shown && (tick % ticksPerFrame == 0 || last)) {
+                    if (free.isEmpty()) free.add(drain(pending, format));
+                    Frame f = free.poll();
+                    view.render(f.g, size.width, size.height);
+                    pending.add(pool.submit(() -> { format.encode(f); return f; }));
+                    frames++;
+                }
+                if (last) break;
+                source.advance();
+            }
+            while (!pending.isEmpty()) drain(pending, format);
+            complete = true;
+        } finally {
+            pool.shutdownNow();
+            if (complete) format.close();
+            else format.discard();
+        }
+        return new double[] { frames, (System.nanoTime() - start) / 1e9 };
+    }
+
+    private static Frame drain(ArrayDeque<Future<Frame>> pending, Format format) throws Exception {
+        Frame f = pending.poll().get();
+        format.write(f);
+        return f;
+    }
+
+    // --- Formats ---
+
+    /** frame-000000.png, frame-000001.png, ... in a directory. */
+    static final class PngSequence implements Format {
+        private final File dir;
+        private int next;
+        private long bytes;
+
+        PngSequence(File dir) { this.dir = dir; }
+
+        public void open(int w, int h, int frameMs) throws IOException {
+            if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        }
+
+        public void encode(Frame frame) throws IOException {
+            frame.out.reset();
+            ImageIO.write(frame.image, "png", frame.out);
+        }
+
+        public void write(Frame frame) throws IOException {
+            try (FileOutputStream out = new FileOutputStream(frameFile(next++))) {
+                out.write(frame.out.array(), 0, frame.out.size());
+            }
+            bytes += frame.out.size();
+        }
+
+        private File frameFile(int i) { return new File(dir, String.format("frame-%06d.png", i)); }
+
+        public long bytesWritten() { return bytes; }
+        public void close() { }
+
+        public void discard() {
+            while (next > 0) frameFile(--next).delete();
+        }
+    }
+
+    /**
+     * AVI 1.0 files of uncompressed 24-bit frames with an idx1 index, which every player reads.
+     * Frame count and chunk sizes are patched into the header on close. RIFF sizes are 32-bit, so
+     * a file is finished short of 2 GB and the export goes on in name-2.avi, name-3.avi and so on,
+     * each playable on its own.
+     */
+    static final class AviWriter implements Format {
+        private static final long MAX_BYTES = Integer.MAX_VALUE;
+        private static final int MOVI_FOURCC = 220; // where 'movi' sits; index offsets count from here
+        private static final int HEADER_BYTES = 224;
+
+        private final File file;
+        private final List<File> parts = new ArrayList<>();
+        private RandomAccessFile raf;
+        private FileChannel ch;
+        private int w, h, frameMs, frameBytes, stride;
+        private long pos, finishedBytes;
+        private int frames;
+        private int[] offsets = new int[1024];
+        private final ByteBuffer chunkHeader = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+
+        AviWriter(File file) { this.file = file; }
+
+        public void open(int w, int h, int frameMs) throws IOException {
+            this.w = w; this.h = h; this.frameMs = frameMs;
+            stride = (w * 3 + 3) & ~3;
+            frameBytes = stride * h;
+            start(file);
+        }
+
+        private void start(File part) throws IOException {
+            parts.add(part);
+            raf = new RandomAccessFile(part, "rw");
+            raf.setLength(0);
+            ch = raf.getChannel();
+            ch.write(header(0, 0, 0), 0);
+            pos = HEADER_BYTES;
+            frames = 0;
+        }
+
+        // game.avi, game-2.avi, game-3.avi, ...
+        private File nextPart() {
+            String name = file.getName();
+            int dot = name.lastIndexOf('.');
+            String stem = dot < 0 ? name : name.substring(0, dot), ext = dot < 0 ? "" : name.substring(dot);
+            return new File(file.getAbsoluteFile().getParentFile(), stem + "-" + (parts.size() + 1) + ext);
+        }
+
+        List<File> parts() { return parts; }
+
+        // Bottom-up BGR rows padded to four bytes, as a BI_RGB bitmap stores them
+        public void encode(Frame frame) {
+            byte[] out = frame.out.fill(frameBytes);
+            int[] px = frame.pixels;
+            for (int y = 0; y < h; y++) {
+                int o = (h - 1 - y) * stride, p = y * w;
+                for (int x = 0; x < w; x++, o += 3) {
+                    int rgb = px[p + x];
+                    out[o] = (byte) rgb;
+                    out[o + 1] = (byte) (rgb >>> 8);
+                    out[o + 2] = (byte) (rgb >>> 16);
+                }
+            }
+        }
+
+        public void write(Frame frame) throws IOException {
+            if (pos + 8 + frameBytes + 16L * (frames + 1) + 8 > MAX_BYTES) {
+                if (frames == 0) throw new IOException("A " + w + "x" + h + " frame does not fit in an AVI file");
+                finish();
+                start(nextPart());
+            }
+            if (frames == offsets.length) offsets = Arrays.copyOf(offsets, frames * 2);
+            offsets[frames++] = (int) (pos - MOVI_FOURCC);
+            chunkHeader.clear();
+            chunkHeader.put((byte) '0').put((byte) '0').put((byte) 'd').put((byte) 'b').putInt(frameBytes).flip();
+            pos += ch.write(chunkHeader, pos);
+            ByteBuffer data = ByteBuffer.wrap(frame.out.array(), 0, frameBytes);
+            while (data.hasRemaining()) pos += ch.write(data, pos);
+        }
+
+        public long bytesWritten() { return finishedBytes + pos; }
+
+        public void close() throws IOException {
+            if (raf != null) finish();
+        }
+
+        public void discard() {
+            try {
+                if (raf != null) raf.close();
+            } catch (IOException ignored) {
+                // deleted next regardless
+            }
+            raf = null;
+            for (File part : parts) part.delete();
+        }
+
+        // Appends the index and patches the header of the file being written, then closes it
+        private void finish() throws IOException {
+            try {
+                long moviSize = pos - MOVI_FOURCC;
+                ByteBuffer idx = ByteBuffer.allocate(8 + 16 * frames).order(ByteOrder.LITTLE_ENDIAN);
+                idx.put("idx1".getBytes("US-ASCII")).putInt(16 * frames);
+                for (int i = 0; i < frames; i++) {
+                    idx.put("00db".getBytes("US-ASCII")).putInt(0x10).putInt(offsets[i]).putInt(frameBytes);
+                }
+                idx.flip();
+                while (idx.hasRemaining()) pos += ch.write(idx, pos);
+                ch.write(header(pos - 8, moviSize, frames), 0);
+            } finally {
+                raf.close();
+                raf = null;
+            }
+            finishedBytes += pos;
+            pos = 0;
+        }
+
+        private ByteBuffer header(long riffSize, long moviSize, int frameCount) {
+            ByteBuffer b = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            fourcc(b, "RIFF").putInt((int) riffSize); fourcc(b, "AVI ");
+            fourcc(b, "LIST").putInt(192); fourcc(b, "hdrl");
+            fourcc(b, "avih").putInt(56);
+            b.putInt(1000 * frameMs).putInt((int) Math.min(Integer.MAX_VALUE, 1000L * frameBytes / frameMs)).putInt(0).putInt(0x10) // AVIF_HASINDEX
+                    .putInt(frameCount).putInt(0).putInt(1).putInt(frameBytes + 8)
+                    .putInt(w).putInt(h).putInt(0).putInt(0).putInt(0).putInt(0);
+            fourcc(b, "LIST").putInt(116); fourcc(b, "strl");
+            fourcc(b, "strh").putInt(56);
+            fourcc(b, "vids"); fourcc(b, "DIB ");
+            b.putInt(0).putShort((short) 0).putShort((short) 0).putInt(0)
+                    .putInt(frameMs).putInt(1000).putInt(0).putInt(frameCount) // scale / rate: one frame per frameMs
+                    .putInt(frameBytes + 8).putInt(-1).putInt(0)
+                    .putShort((short) 0).putShort((short) 0).putShort((short) w).putShort((short) h);
+            fourcc(b, "strf").putInt(40);
+            b.putInt(40).putInt(w).putInt(h).putShort((short) 1).putShort((short) 24)
+                    .putInt(0).putInt(frameBytes).putInt(0).putInt(0).putInt(0).putInt(0);
+            fourcc(b, "LIST").putInt((int) moviSize); fourcc(b, "movi");
+            b.flip();
+            return b;
+        }
+
+        private static ByteBuffer fourcc(ByteBuffer b, String s) {
+            for (int i = 0; i < 4; i++) b.put((byte) s.charAt(i));
+            return b;
+        }
+    }
+
+    private static int atLeastOne(String flag, String value) {
+        int n = Integer.parseInt(value);
+        if (n < 1) {
+            System.err.println("Invalid value for " + flag + ": " + value + " (must be at least 1)");
+            System.exit(2);
+        }
+        return n;
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        File recording = null, out = null;
+        Long seed = null;
+        int movesPerSec = 4, fps = DEFAULT_FPS, tile = TheBestFootballGame.TILE_SIZE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean touchdowns = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--moves-per-sec": movesPerSec = atLeastOne(args[i], args[++i]); break;
+                case "--out": out = new File(args[++i]); break;
+                case "--fps": fps = atLeastOne(args[i], args[++i]); break;
+                case "--tile": tile = atLeastOne(args[i], args[++i]); break;
+                case "--touchdowns": touchdowns = true; break;
+                case "--threads": threads = atLeastOne(args[i], args[++i]); break;
+                default:
+                    if (args[i].startsWith("--") || recording != null) {
+                        System.err.println("Unknown argument: " + args[i]);
+                        System.exit(2);
+                    }
+                    recording = new File(args[i]);
+            }
+        }
+        if ((recording == null) == (seed == null) || out == null) {
+            System.err.println("Usage: java VideoExport (<recording> | --seed S [--moves-per-sec M]) --out file.avi|dir");
+            System.err.println("                        [--fps N] [--tile px] [--touchdowns] [--threads T]");
+            System.exit(2);
+        }
+
+        Supplier<Source> source;
+        if (recording != null) {
+            InputRecording rec = InputRecording.load(recording);
+            source = () -> replay(rec);
+        } else {
+            long s = seed;
+            int m = movesPerSec;
+            source = () -> seeded(s, m);
+        }
+
+        List<long[]> ranges = null;
+        if (touchdowns) {
+            ranges = touchdownRanges(source.get());
+            System.out.println("export: " + ranges.size() + " touchdown plays");
+            if (ranges.isEmpty()) return;
+        }
+
+        Format format = out.getName().toLowerCase().endsWith(".avi") ? new AviWriter(out) : new PngSequence(out);
+        int frameMs = ticksPerFrame(fps) * GameEngine.TICK_MS;
+        if (frameMs * fps != 1000) {
+            System.out.printf("export: %d fps does not divide the %d Hz tick rate; exporting at %.1f fps%n",
+                    fps, 1000 / GameEngine.TICK_MS, 1000.0 / frameMs);
+        }
+        double[] r = export(source.get(), ranges, format, fps, tile, threads);
+        System.out.printf("export: %d frames at %.1f fps (%.1f s of video) in %.2f s: %.1f frames/sec, %.1f MB to %s%n",
+                (long) r[0], 1000.0 / frameMs, r[0] * frameMs / 1000, r[1], r[0] / r[1], format.bytesWritten() / 1e6, out);
+        if (format instanceof AviWriter && ((AviWriter) format).parts().size() > 1) {
+            System.out.println("export: split into " + ((AviWriter) format).parts().size() + " files to stay under 2 GB each");
+        }
+    }
+}